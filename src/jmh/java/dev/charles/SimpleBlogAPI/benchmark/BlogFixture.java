@@ -0,0 +1,124 @@
+package dev.charles.SimpleBlogAPI.benchmark;
+
+import dev.charles.SimpleBlogAPI.Application;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application against a Testcontainers Postgres seeded once per trial.
+ * The volume is read from {@code -Dbench.posts} and {@code -Dbench.comments-per-post},
+ * which {@code ./gradlew jmh -Pbench.posts=...} passes through to the forked JVM.
+ * Every post gets that many top-level comments, and the first comment of every post
+ * gets that many replies.
+ */
+@State(Scope.Benchmark)
+public class BlogFixture {
+    public static final String KEYWORD = "postgres";
+
+    private PostgreSQLContainer<?> postgres;
+    private ConfigurableApplicationContext context;
+
+    public int posts;
+    public int commentsPerPost;
+    public int users;
+    public String busiestUserEmail;
+    public long busiestPostId;
+    public long busiestParentId;
+
+    @Setup
+    public void start() {
+        start(Map.of());
+    }
+
+    /**
+     * Starts the fixture with extra application properties, for benchmarks that boot
+     * the application in a different mode.
+     */
+    public void start(Map<String, String> overrides) {
+        posts = Integer.getInteger("bench.posts", 10_000);
+        commentsPerPost = Integer.getInteger("bench.comments-per-post", 5);
+        users = Math.max(1, posts / 100);
+
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=" + postgres.getJdbcUrl(),
+                "spring.datasource.username=" + postgres.getUsername(),
+                "spring.datasource.password=" + postgres.getPassword(),
+                "spring.security.oauth2.resourceserver.opaquetoken.introspection-uri=http://localhost/introspect",
+                "spring.jpa.show-sql=false",
+                "spring.docker.compose.enabled=false",
+                "server.port=0"));
+        overrides.forEach((key, value) -> properties.add(key + "=" + value));
+        context = new SpringApplicationBuilder(Application.class)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown
+    public void stop() {
+        if (context != null) {
+            context.close();
+        }
+        if (postgres != null) {
+            postgres.stop();
+        }
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int port() {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("""
+                INSERT INTO users (username, email, created_at)
+                SELECT 'user' || g, 'user' || g || '@bench.dev', now()
+                FROM generate_series(1, ?) g
+                """, users);
+        jdbcTemplate.update("""
+                INSERT INTO posts (title, content, created_by_id, created_at)
+                SELECT 'post ' || g || ' about ' || (ARRAY['spring', 'postgres', 'search', 'cache', 'index'])[1 + g % 5],
+                       'content ' || g || ' on ' || (ARRAY['jpa', 'querydsl', 'postgres', 'jackson'])[1 + g % 4],
+                       u.id,
+                       now() - g * interval '1 minute'
+                FROM generate_series(1, ?) g
+                JOIN (SELECT id, row_number() OVER (ORDER BY id) AS n FROM users) u ON u.n = 1 + g % ?
+                """, posts, users);
+        jdbcTemplate.update("""
+                INSERT INTO comments (content, post_id, created_by_id, created_at)
+                SELECT 'comment ' || g || ' on post ' || p.id, p.id, p.created_by_id, now() - g * interval '1 second'
+                FROM posts p, generate_series(1, ?) g
+                """, commentsPerPost);
+        jdbcTemplate.update("""
+                INSERT INTO comments (content, post_id, created_by_id, parent_id, created_at)
+                SELECT 'reply ' || g, c.post_id, c.created_by_id, c.id, now() - g * interval '1 second'
+                FROM (SELECT DISTINCT ON (post_id) id, post_id, created_by_id FROM comments ORDER BY post_id, id) c,
+                     generate_series(1, ?) g
+                """, commentsPerPost);
+        jdbcTemplate.execute("ANALYZE");
+
+        busiestUserEmail = jdbcTemplate.queryForObject("""
+                SELECT u.email FROM users u JOIN posts p ON p.created_by_id = u.id
+                GROUP BY u.email ORDER BY count(*) DESC LIMIT 1
+                """, String.class);
+        busiestPostId = jdbcTemplate.queryForObject(
+                "SELECT id FROM posts ORDER BY comment_count DESC, id LIMIT 1", Long.class);
+        busiestParentId = jdbcTemplate.queryForObject(
+                "SELECT id FROM comments ORDER BY reply_count DESC, id LIMIT 1", Long.class);
+    }
+}
@@ -0,0 +1,38 @@
+package dev.charles.SimpleBlogAPI.benchmark;
+
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.service.CommentsService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Comment and reply pages as the service assembles them: comment rows without a users join,
+ * with authors attached from the author cache, for the post and the parent comment with the most children.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CommentsPageBenchmark {
+    private CommentsService commentsService;
+    private long postId;
+    private long parentId;
+
+    @Setup
+    public void setup(BlogFixture fixture) {
+        commentsService = fixture.bean(CommentsService.class);
+        postId = fixture.busiestPostId;
+        parentId = fixture.busiestParentId;
+    }
+
+    @Benchmark
+    public Page<CommentsResponseDto> parentCommentsPage() {
+        return commentsService.getCommentsByPostId(postId, 0);
+    }
+
+    @Benchmark
+    public Page<CommentsResponseDto> repliesPage() {
+        return commentsService.getRepliesByParentId(parentId, 0);
+    }
+}
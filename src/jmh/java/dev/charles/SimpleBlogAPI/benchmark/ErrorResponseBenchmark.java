@@ -0,0 +1,85 @@
+package dev.charles.SimpleBlogAPI.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
+import dev.charles.SimpleBlogAPI.errors.handler.GlobalExceptionHandler;
+import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Error response construction in {@link GlobalExceptionHandler} plus serialization of the body,
+ * for the exception types the API raises most. Exceptions are created once so that only
+ * the handler, its logging and Jackson are measured. Logging goes through the WARN-level,
+ * appender-less logback.xml of the jmh source set.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ErrorResponseBenchmark {
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private NotFoundResourceException notFound;
+    private IllegalArgumentException illegalArgument;
+    private ConstraintViolationException constraintViolation;
+    private MethodArgumentNotValidException argumentNotValid;
+    private ServletWebRequest webRequest;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        notFound = new NotFoundResourceException("Post not found with id: 42");
+        illegalArgument = new IllegalArgumentException("Invalid cursor");
+
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+        UserDto invalid = new UserDto("not-an-email", "x");
+        constraintViolation = new ConstraintViolationException(validator.validate(invalid));
+
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalid, "userDto");
+        bindingResult.rejectValue("email", "Email", "올바른 이메일을 입력하세요.");
+        bindingResult.rejectValue("username", "Length", "2이상 15이하 글자를 입력하세요.");
+        MethodParameter parameter = new MethodParameter(ErrorResponseBenchmark.class.getDeclaredMethod("create", UserDto.class), 0);
+        argumentNotValid = new MethodArgumentNotValidException(parameter, bindingResult);
+        webRequest = new ServletWebRequest(new MockHttpServletRequest());
+    }
+
+    @Benchmark
+    public byte[] notFound() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleAPIException(notFound).getBody());
+    }
+
+    @Benchmark
+    public byte[] illegalArgument() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleIllegalArgument(illegalArgument).getBody());
+    }
+
+    @Benchmark
+    public byte[] constraintViolation() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(handler.handleConstraintViolationException(constraintViolation).getBody());
+    }
+
+    @Benchmark
+    public byte[] methodArgumentNotValid() throws JsonProcessingException {
+        ResponseEntity<Object> response = handler.handleMethodArgumentNotValid(
+                argumentNotValid, new HttpHeaders(), HttpStatus.BAD_REQUEST, webRequest);
+        return objectMapper.writeValueAsBytes(response.getBody());
+    }
+
+    // stands in for the controller method whose @RequestBody failed validation
+    @SuppressWarnings("unused")
+    private void create(UserDto userDto) {
+    }
+}
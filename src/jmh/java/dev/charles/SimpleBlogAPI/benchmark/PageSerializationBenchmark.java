@@ -0,0 +1,67 @@
+package dev.charles.SimpleBlogAPI.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.config.SpringDataJacksonConfiguration;
+import org.springframework.data.web.config.SpringDataWebSettings;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.data.web.config.EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO;
+
+/**
+ * Jackson serialization of page responses the way WebConfig configures them,
+ * i.e. {@code Page} instances rendered through {@code PagedModel} ({@code VIA_DTO}).
+ * Needs no database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark {
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<PostDto> posts;
+    private Page<CommentsResponseDto> comments;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(new SpringDataJacksonConfiguration.PageModule(new SpringDataWebSettings(VIA_DTO)))
+                .build();
+        List<PostDto> postList = new ArrayList<>(pageSize);
+        List<CommentsResponseDto> commentList = new ArrayList<>(pageSize);
+        Instant now = Instant.now();
+        for (int i = 0; i < pageSize; i++) {
+            postList.add(new PostDto("post " + i + " about postgres", "content " + i + " on jpa and querydsl"));
+            commentList.add(new CommentsResponseDto("comment " + i, now, now,
+                    new UserDto("user" + i + "@bench.dev", "user" + i)));
+        }
+        posts = new PageImpl<>(postList, PageRequest.of(3, pageSize), 10_000);
+        comments = new PageImpl<>(commentList, PageRequest.of(0, pageSize), 10_000);
+    }
+
+    @Benchmark
+    public byte[] serializePostsPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(posts);
+    }
+
+    @Benchmark
+    public byte[] serializeCommentsPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(comments);
+    }
+}
@@ -0,0 +1,51 @@
+package dev.charles.SimpleBlogAPI.benchmark;
+
+import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Post listing and full-text search as served by /api/posts/paged and /api/posts/paged/user,
+ * on the first page and on a deep offset page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PostsSearchBenchmark {
+    @Param({"0", "50"})
+    public int pageNumber;
+
+    private PostsRepository postsRepository;
+    private String email;
+
+    @Setup
+    public void setup(BlogFixture fixture) {
+        postsRepository = fixture.bean(PostsRepository.class);
+        email = fixture.busiestUserEmail;
+    }
+
+    @Benchmark
+    public Page<PostDto> listPosts() {
+        return postsRepository.findAllByKeyword(false, "", PageRequest.of(pageNumber, 10));
+    }
+
+    @Benchmark
+    public Page<PostDto> searchPosts() {
+        return postsRepository.findAllByKeyword(true, BlogFixture.KEYWORD, PageRequest.of(pageNumber, 10));
+    }
+
+    @Benchmark
+    public Page<PostDto> searchPostsByUser() {
+        return postsRepository.findAllByKeywordAndEmail(true, BlogFixture.KEYWORD, email, PageRequest.of(pageNumber, 10));
+    }
+
+    @Benchmark
+    public CursorPage<PostDto> searchPostsFirstKeysetPage() {
+        return postsRepository.findAllByKeywordAfter(BlogFixture.KEYWORD, null, 10);
+    }
+}
@@ -0,0 +1,113 @@
+package dev.charles.SimpleBlogAPI.benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for the thread model: each operation fires a burst of concurrent authenticated
+ * {@code GET /api/posts?id=} requests, each with a fresh bearer token. Every request therefore misses
+ * the introspection cache and waits on a stub introspection endpoint that answers after
+ * {@code -Dbench.introspection-delay-ms}. With platform threads the burst queues behind Tomcat's
+ * worker pool. With virtual threads, the requests park while introspection is in flight.
+ * Compare the two {@code virtualThreads} rows; virtual threads need the Java 21+ toolchain.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class VirtualThreadLoadBenchmark {
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private final BlogFixture fixture = new BlogFixture();
+    private final AtomicLong tokens = new AtomicLong();
+    private HttpServer introspection;
+    private ExecutorService introspectionExecutor;
+    private HttpClient client;
+    private URI postUri;
+    private int concurrency;
+
+    @Setup
+    public void setup() throws IOException {
+        concurrency = Integer.getInteger("bench.concurrency", 1000);
+        long delayMillis = Long.getLong("bench.introspection-delay-ms", 200);
+        String email = "user1@bench.dev";
+
+        introspectionExecutor = Executors.newCachedThreadPool();
+        introspection = HttpServer.create(new InetSocketAddress("localhost", 0), concurrency);
+        introspection.setExecutor(introspectionExecutor);
+        introspection.createContext("/introspect", exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            String exp = String.valueOf(Instant.now().plusSeconds(3600).getEpochSecond());
+            byte[] body = ("{\"email\":\"" + email + "\",\"exp\":\"" + exp + "\",\"scope\":\"openid email\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        introspection.start();
+
+        fixture.start(Map.of(
+                "spring.threads.virtual.enabled", String.valueOf(virtualThreads),
+                "spring.security.oauth2.resourceserver.opaquetoken.introspection-uri",
+                "http://localhost:" + introspection.getAddress().getPort() + "/introspect"));
+        postUri = URI.create("http://localhost:" + fixture.port() + "/api/posts?id=" + fixture.busiestPostId);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void teardown() {
+        fixture.stop();
+        introspection.stop(0);
+        introspectionExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            HttpRequest request = HttpRequest.newBuilder(postUri)
+                    .header("Authorization", "Bearer load-" + tokens.incrementAndGet())
+                    .header("Content-Type", "application/json")
+                    .GET()
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        if (ok != concurrency) {
+            throw new IllegalStateException((concurrency - ok) + " of " + concurrency + " requests failed");
+        }
+        return ok;
+    }
+}
@@ -1,8 +1,16 @@
 package dev.charles.SimpleBlogAPI.comments.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsAcceptedDto;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsTreeDto;
 import dev.charles.SimpleBlogAPI.comments.service.CommentsService;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult;
+import dev.charles.SimpleBlogAPI.utils.bulk.NdjsonWriter;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -13,6 +21,10 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.UUID;
 
 @RestController
 @RequestMapping(path = "/api/comments", consumes = MediaType.APPLICATION_JSON_VALUE)
@@ -20,16 +32,45 @@ import org.springframework.web.bind.annotation.*;
 @Validated
 public class CommentsController {
     final private CommentsService commentsService;
+    final private ObjectMapper objectMapper;
 
+    /**
+     * Creates a comment and answers 201, or with {@code comments.write-behind.enabled} queues it
+     * and answers 202 with a provisional id, or 429 while the queue is full.
+     * A 202 is not a guarantee: a queued comment whose post or parent is gone by the time it is
+     * written, or that is still queued when a shutdown times out, is dropped without notifying
+     * the client. The provisional id only correlates the request with the server log.
+     */
     @PostMapping
     public ResponseEntity<?> createComment(
             @AuthenticationPrincipal OAuth2AuthenticatedPrincipal principal,
-            @RequestBody CommentsRequestDto requestDto) {
+            @Validated @RequestBody CommentsRequestDto requestDto) {
         String email = principal.getAttribute("email");
+        if (commentsService.isBuffered()) {
+            UUID provisionalId = commentsService.bufferComment(requestDto, email);
+            return new ResponseEntity<>(new CommentsAcceptedDto(provisionalId), HttpStatus.ACCEPTED);
+        }
         commentsService.createComment(requestDto, email);
         return new ResponseEntity<>(null, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports a JSON array or NDJSON stream of comments and answers with one NDJSON result line per item.
+     * The body is read while the response is written, so neither side is buffered in full.
+     */
+    @PostMapping(path = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkImport(
+            @AuthenticationPrincipal OAuth2AuthenticatedPrincipal principal,
+            InputStream body) {
+        String email = principal.getAttribute("email");
+        StreamingResponseBody stream = out -> commentsService.importComments(email, body, new NdjsonWriter<>(objectMapper, BulkItemResult.class, out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(stream);
+    }
+
     @PatchMapping
     public ResponseEntity<?> updateComment(
             @AuthenticationPrincipal OAuth2AuthenticatedPrincipal principal,
@@ -65,5 +106,64 @@ public class CommentsController {
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    /**
+     * Keyset variant of /paged/post, selected by the presence of {@code after}.
+     * Pass an empty {@code after} for the first page and the returned {@code nextCursor} afterwards.
+     */
+    @GetMapping(path = "/paged/post", params = "after")
+    public ResponseEntity<CursorPage<CommentsResponseDto>> getPostCommentsAfter(
+            @NotNull @RequestParam(value = "postId") Long postId,
+            @RequestParam(value = "after") String after) {
+        CursorPage<CommentsResponseDto> result = commentsService.getCommentsByPostIdAfter(postId, after);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/paged/reply", params = "after")
+    public ResponseEntity<CursorPage<CommentsResponseDto>> getRepliesAfter(
+            @NotNull @RequestParam(value = "parentId") Long parentId,
+            @RequestParam(value = "after") String after) {
+        CursorPage<CommentsResponseDto> result = commentsService.getRepliesByParentIdAfter(parentId, after);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * A page of top-level comments with up to {@code replies} newest replies each,
+     * {@code depth} levels deep, so a thread renders from one request instead of one per parent.
+     */
+    @GetMapping("/tree")
+    public ResponseEntity<Page<CommentsTreeDto>> getCommentTree(
+            @NotNull @RequestParam(value = "postId") Long postId,
+            @Min(value = 0, message = "최소 0 이상입니다.")
+            @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber,
+            @Min(value = 0, message = "최소 0 이상입니다.")
+            @Max(value = 5, message = "최대 5 이하입니다.")
+            @RequestParam(value = "depth", defaultValue = "${comments.tree.depth:2}") Integer depth,
+            @Min(value = 0, message = "최소 0 이상입니다.")
+            @Max(value = 20, message = "최대 20 이하입니다.")
+            @RequestParam(value = "replies", defaultValue = "${comments.tree.replies:3}") Integer replies) {
+        Page<CommentsTreeDto> result = commentsService.getCommentTree(postId, pageNumber, depth, replies);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * A comment with every reply below it, at any depth.
+     */
+    @GetMapping("/thread")
+    public ResponseEntity<CommentsTreeDto> getThread(
+            @NotNull @RequestParam(value = "commentId") Long commentId) {
+        CommentsTreeDto result = commentsService.getThread(commentId);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
+    /**
+     * The number of replies below a comment at any depth.
+     */
+    @GetMapping("/thread/count")
+    public ResponseEntity<Long> countThreadReplies(
+            @NotNull @RequestParam(value = "commentId") Long commentId) {
+        long result = commentsService.countThreadReplies(commentId);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+
 
 }
@@ -8,6 +8,8 @@ import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,7 +19,8 @@ import java.util.List;
 @Getter
 public class Comments extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "comments_id_seq")
+    @SequenceGenerator(name = "comments_id_seq", sequenceName = "comments_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false, columnDefinition = "TEXT")
@@ -28,19 +31,31 @@ public class Comments extends BaseEntity {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Posts post;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Users createdBy;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parent_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Comments parentComment;
 
-    @OneToMany(mappedBy = "parentComment", cascade = CascadeType.ALL, orphanRemoval = true)
+    // removed by ON DELETE CASCADE, so deleting a comment never loads them
+    @OneToMany(mappedBy = "parentComment")
     private List<Comments> replies = new ArrayList<>();
 
+    // maintained by the trigger on comments
+    @Column(name = "reply_count", insertable = false, updatable = false)
+    private Long replyCount;
+
+    // ltree of ids from the top-level comment down to this one, set by the trigger on insert
+    @Column(name = "path", columnDefinition = "ltree", insertable = false, updatable = false)
+    private String path;
+
     @Builder
     public Comments(Posts post, Users user, String content, Comments parentComment) {
         this.post = post;
@@ -0,0 +1,11 @@
+package dev.charles.SimpleBlogAPI.comments.dto;
+
+import java.util.UUID;
+
+/**
+ * Body of a 202 answer to a buffered comment. {@code provisionalId} is logged together with
+ * the comment id once the comment is written, or on its own if the comment is dropped;
+ * it cannot be resolved through the API.
+ */
+public record CommentsAcceptedDto(UUID provisionalId) {
+}
@@ -1,5 +1,6 @@
 package dev.charles.SimpleBlogAPI.comments.dto;
 
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 import lombok.Getter;
@@ -16,6 +17,7 @@ public class CommentsRequestDto {
     private Long postId;
     private Long parentId;
 
+    @NotBlank(message = "Input content")
     @Length(min = 5, message = "input more than 5 length")
     private String content;
 
@@ -1,5 +1,6 @@
 package dev.charles.SimpleBlogAPI.comments.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.querydsl.core.annotations.QueryProjection;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import lombok.Getter;
@@ -16,12 +17,28 @@ public class CommentsResponseDto {
     private Instant createdAt;
     private Instant updatedAt;
     private UserDto createdBy; // 작성자 정보
+    @JsonIgnore
+    private Long createdById;
 
-    @QueryProjection
     public CommentsResponseDto(String content, Instant createdAt, Instant updatedAt, UserDto createdBy) {
         this.content = content;
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         this.createdBy = createdBy;
     }
-}
\ No newline at end of file
+
+    /**
+     * Row of a listing without its author, which is attached afterwards by {@link #attachAuthor(UserDto)}.
+     */
+    @QueryProjection
+    public CommentsResponseDto(String content, Instant createdAt, Instant updatedAt, Long createdById) {
+        this.content = content;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.createdById = createdById;
+    }
+
+    public void attachAuthor(UserDto author) {
+        this.createdBy = author;
+    }
+}
@@ -0,0 +1,51 @@
+package dev.charles.SimpleBlogAPI.comments.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A comment with the first replies below it, newest first.
+ * {@code replyCount} is the total number of direct replies, so a client can tell whether
+ * {@code replies} is complete or the rest must be paged through {@code /api/comments/paged/reply}.
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+public class CommentsTreeDto {
+    private Long id;
+    @JsonIgnore
+    private Long parentId;
+    private String content;
+    private Instant createdAt;
+    private Instant updatedAt;
+    private UserDto createdBy;
+    @JsonIgnore
+    private Long createdById;
+    private long replyCount;
+    private List<CommentsTreeDto> replies = new ArrayList<>();
+
+    @Builder
+    public CommentsTreeDto(Long id, Long parentId, String content, Instant createdAt, Instant updatedAt,
+                           UserDto createdBy, Long createdById, long replyCount) {
+        this.id = id;
+        this.parentId = parentId;
+        this.content = content;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.createdBy = createdBy;
+        this.createdById = createdById;
+        this.replyCount = replyCount;
+    }
+
+    public void attachAuthor(UserDto author) {
+        this.createdBy = author;
+    }
+}
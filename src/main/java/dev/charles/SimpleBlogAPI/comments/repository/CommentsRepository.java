@@ -2,6 +2,68 @@ package dev.charles.SimpleBlogAPI.comments.repository;
 
 import dev.charles.SimpleBlogAPI.comments.domain.Comments;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 public interface CommentsRepository extends JpaRepository<Comments,Long>, CustomizedCommentsRepository{
+
+    /**
+     * Deletes a comment with one statement and lets ON DELETE CASCADE remove its replies.
+     * @return number of deleted comments
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Comments c where c.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
+
+    /**
+     * Counts every reply below a comment at any depth with one scan of the path index.
+     * @return number of descendants, 0 for an unknown comment
+     */
+    @Query(value = """
+            SELECT count(*)
+            FROM comments c
+            WHERE c.path <@ (SELECT r.path FROM comments r WHERE r.id = :id)
+              AND c.id <> :id
+            """, nativeQuery = true)
+    long countDescendantsById(@Param("id") Long id);
+
+    /**
+     * Rewrites posts.comment_count where it differs from the actual number of top-level comments.
+     * @return number of repaired posts
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE posts p
+            SET comment_count = actual.cnt
+            FROM (
+                SELECT p2.id, count(c.id) AS cnt
+                FROM posts p2
+                LEFT JOIN comments c ON c.post_id = p2.id AND c.parent_id IS NULL
+                GROUP BY p2.id
+            ) actual
+            WHERE actual.id = p.id AND p.comment_count <> actual.cnt
+            """, nativeQuery = true)
+    int reconcileCommentCounts();
+
+    /**
+     * Rewrites comments.reply_count where it differs from the actual number of direct replies.
+     * @return number of repaired comments
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            UPDATE comments p
+            SET reply_count = actual.cnt
+            FROM (
+                SELECT c2.id, count(r.id) AS cnt
+                FROM comments c2
+                LEFT JOIN comments r ON r.parent_id = c2.id
+                GROUP BY c2.id
+            ) actual
+            WHERE actual.id = p.id AND p.reply_count <> actual.cnt
+            """, nativeQuery = true)
+    int reconcileReplyCounts();
 }
@@ -1,10 +1,42 @@
 package dev.charles.SimpleBlogAPI.comments.repository;
 
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsTreeDto;
+import dev.charles.SimpleBlogAPI.utils.pagination.CreatedAtCursor;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Optional;
+
+/**
+ * Comment listings carry only the author's {@code created_by_id}, so none of them joins users;
+ * {@code CommentsService} attaches the authors from {@code AuthorCache}.
+ */
 public interface CustomizedCommentsRepository {
     Page<CommentsResponseDto> findAllParentsByPostId(Long postId, Pageable pageable);
     Page<CommentsResponseDto> findAllChildrenByParentId(Long parentId, Pageable pageable);
+
+    /**
+     * Keyset variant of {@link #findAllParentsByPostId}: the {@code pageSize} top-level comments
+     * created before {@code after}, newest first, or the first page when {@code after} is null.
+     */
+    CursorPage<CommentsResponseDto> findAllParentsByPostIdAfter(Long postId, CreatedAtCursor after, int pageSize);
+
+    /**
+     * Keyset variant of {@link #findAllChildrenByParentId}.
+     */
+    CursorPage<CommentsResponseDto> findAllChildrenByParentIdAfter(Long parentId, CreatedAtCursor after, int pageSize);
+
+    /**
+     * Fetches a page of top-level comments of a post together with up to {@code maxReplies}
+     * newest replies per comment, {@code maxDepth} levels deep, in one query.
+     * {@code maxDepth} 0 returns the top-level comments alone.
+     */
+    Page<CommentsTreeDto> findTreeByPostId(Long postId, int maxDepth, int maxReplies, Pageable pageable);
+
+    /**
+     * Fetches a comment with every reply below it, at any depth, in one scan of the path index.
+     */
+    Optional<CommentsTreeDto> findSubtreeById(Long commentId);
 }
@@ -1,32 +1,50 @@
 package dev.charles.SimpleBlogAPI.comments.repository;
 
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import dev.charles.SimpleBlogAPI.comments.domain.Comments;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsTreeDto;
 import dev.charles.SimpleBlogAPI.comments.dto.QCommentsResponseDto;
-import dev.charles.SimpleBlogAPI.users.dto.QUserDto;
+import dev.charles.SimpleBlogAPI.utils.metrics.QueryTimer;
+import dev.charles.SimpleBlogAPI.utils.pagination.CreatedAtCursor;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.StandardBasicTypes;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 import static dev.charles.SimpleBlogAPI.comments.domain.QComments.comments;
-import static dev.charles.SimpleBlogAPI.users.domain.QUsers.users;
+import static dev.charles.SimpleBlogAPI.posts.domain.QPosts.posts;
 
 
 public class CustomizedCommentsRepositoryImpl extends QuerydslRepositorySupport  implements CustomizedCommentsRepository {
+    private static final String REPOSITORY = "comments";
     private final JPAQueryFactory queryFactory;
+    private final QueryTimer queryTimer;
 
-    public CustomizedCommentsRepositoryImpl(JPAQueryFactory queryFactory) {
+    public CustomizedCommentsRepositoryImpl(JPAQueryFactory queryFactory, QueryTimer queryTimer) {
         super(Comments.class);
         this.queryFactory = queryFactory;
+        this.queryTimer = queryTimer;
     }
 
     @Override
@@ -34,35 +52,30 @@ public class CustomizedCommentsRepositoryImpl extends QuerydslRepositorySupport
         JPAQuery<Long> idQuery = queryFactory
                 .select(comments.id)
                 .from(comments)
-                .join(comments.createdBy, users)
                 .where(
                         comments.post.id.eq(postId),
                         comments.parentComment.isNull()
                 )
-                .orderBy(comments.createdAt.desc());
+                .orderBy(comments.createdAt.desc(), comments.id.desc());
 
         JPQLQuery<Long> paginationId = querydsl().applyPagination(pageable, idQuery);
-        List<Long> ids = paginationId.fetch();
+        List<Long> ids = queryTimer.record(REPOSITORY, "ids", false, paginationId::fetch);
 
         if(ids.isEmpty()){
             return new PageImpl<>(new ArrayList<>(), pageable, 0);
         }
         JPAQuery<CommentsResponseDto> query = queryFactory
-                .select( new QCommentsResponseDto(comments.content, comments.createdAt, comments.updatedAt,
-                                new QUserDto( comments.createdBy.username,
-                                        comments.createdBy.email)))
+                .select(responseDto())
                 .from(comments)
                 .where(comments.id.in(ids))
-                .orderBy(comments.id.desc());
-        List<CommentsResponseDto> contents = query.fetch();
-        Long totalCount = queryFactory
-                .select(comments.id.count())
-                .from(comments)
-                .where( comments.post.id.eq(postId),
-                        comments.parentComment.isNull()
-                )
-                .fetchOne();
-        return new PageImpl<>(contents, pageable, totalCount);
+                .orderBy(comments.createdAt.desc(), comments.id.desc());
+        List<CommentsResponseDto> contents = queryTimer.record(REPOSITORY, "content", false, query::fetch);
+        Long totalCount = queryTimer.record(REPOSITORY, "count", false, () -> queryFactory
+                .select(posts.commentCount)
+                .from(posts)
+                .where(posts.id.eq(postId))
+                .fetchOne());
+        return new PageImpl<>(contents, pageable, totalCount == null ? 0 : totalCount);
 
     }
 
@@ -71,36 +84,201 @@ public class CustomizedCommentsRepositoryImpl extends QuerydslRepositorySupport
         JPAQuery<Long> idQuery = queryFactory
                 .select(comments.id)
                 .from(comments)
-                .join(comments.createdBy, users)
                 .where(
                         comments.parentComment.id.eq(parentId)
                 )
-                .orderBy(comments.createdAt.desc());
+                .orderBy(comments.createdAt.desc(), comments.id.desc());
 
         JPQLQuery<Long> paginationId = querydsl().applyPagination(pageable, idQuery);
-        List<Long> ids = paginationId.fetch();
+        List<Long> ids = queryTimer.record(REPOSITORY, "ids", false, paginationId::fetch);
 
         if(ids.isEmpty()){
             return new PageImpl<>(new ArrayList<>(), pageable, 0);
         }
         JPAQuery<CommentsResponseDto> query = queryFactory
-                .select( new QCommentsResponseDto(comments.content, comments.createdAt, comments.updatedAt,
-                        new QUserDto( comments.createdBy.username,
-                                comments.createdBy.email)))
+                .select(responseDto())
                 .from(comments)
-                .join(comments.createdBy, users)
                 .where(
                         comments.id.in(ids)
                 )
-                .orderBy(comments.createdAt.desc());
-        List<CommentsResponseDto> contents = query.fetch();
-        Long totalCount = queryFactory
-                .select(comments.id.count())
+                .orderBy(comments.createdAt.desc(), comments.id.desc());
+        List<CommentsResponseDto> contents = queryTimer.record(REPOSITORY, "content", false, query::fetch);
+        Long totalCount = queryTimer.record(REPOSITORY, "count", false, () -> queryFactory
+                .select(comments.replyCount)
                 .from(comments)
+                .where(comments.id.eq(parentId))
+                .fetchOne());
+
+        return new PageImpl<>(contents, pageable, totalCount == null ? 0 : totalCount);
+    }
+
+    /**
+     * Seeks past {@code after} on {@code comments_post_created_id}, whose key order
+     * {@code (post_id, parent_id, created_at DESC, id DESC)} is the page order, so a page reads
+     * {@code pageSize + 1} index entries however deep it is.
+     */
+    @Override
+    public CursorPage<CommentsResponseDto> findAllParentsByPostIdAfter(Long postId, CreatedAtCursor after, int pageSize) {
+        List<Tuple> rows = queryTimer.record(REPOSITORY, "keyset", false, () -> keysetQuery(after, pageSize)
+                .where(
+                        comments.post.id.eq(postId),
+                        comments.parentComment.isNull()
+                )
+                .fetch());
+        return toCursorPage(rows, pageSize);
+    }
+
+    /**
+     * Same seek as {@link #findAllParentsByPostIdAfter} on {@code comments_reply_created_id}.
+     */
+    @Override
+    public CursorPage<CommentsResponseDto> findAllChildrenByParentIdAfter(Long parentId, CreatedAtCursor after, int pageSize) {
+        List<Tuple> rows = queryTimer.record(REPOSITORY, "keyset", false, () -> keysetQuery(after, pageSize)
                 .where(comments.parentComment.id.eq(parentId))
-                .fetchOne();
+                .fetch());
+        return toCursorPage(rows, pageSize);
+    }
+
+    // fetches one extra row to learn whether another page exists without counting
+    private JPAQuery<Tuple> keysetQuery(CreatedAtCursor after, int pageSize) {
+        return queryFactory
+                .select(comments.id, comments.createdAt, responseDto())
+                .from(comments)
+                .where(before(after))
+                .orderBy(comments.createdAt.desc(), comments.id.desc())
+                .limit(pageSize + 1L);
+    }
+
+    private CursorPage<CommentsResponseDto> toCursorPage(List<Tuple> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        List<Tuple> page = hasNext ? rows.subList(0, pageSize) : rows;
+        List<CommentsResponseDto> content = page.stream()
+                .map(row -> row.get(2, CommentsResponseDto.class))
+                .toList();
+        Tuple last = page.isEmpty() ? null : page.get(page.size() - 1);
+        String nextCursor = hasNext ? Cursors.encodeCreatedAt(last.get(comments.createdAt), last.get(comments.id)) : null;
+        return new CursorPage<>(content, pageSize, nextCursor);
+    }
+
+    private BooleanExpression before(CreatedAtCursor after) {
+        if (after == null) return null;
+        return Expressions.booleanTemplate("keyset_before({0}, {1}, {2}, {3})",
+                comments.createdAt, comments.id,
+                Expressions.constant(after.createdAt()), Expressions.constant(after.id()));
+    }
+
+    // created_by_id is read from the comments row itself, so no users join; authors are attached by the caller
+    private static QCommentsResponseDto responseDto() {
+        return new QCommentsResponseDto(comments.content, comments.createdAt, comments.updatedAt, comments.createdBy.id);
+    }
+
+    /**
+     * The top-level page and every reply level come from one {@code WITH RECURSIVE} statement.
+     * Each level takes the newest {@code maxReplies} children per parent with a LATERAL
+     * {@code LIMIT}, so the anchor reads {@code comments_post_created_id} and every level reads
+     * {@code comments_reply_created_id} in index order, and both are index-only scans.
+     * Content and the post's comment total are joined once over the collected ids; authors are
+     * left as {@code created_by_id} for the caller to attach.
+     */
+    @Override
+    public Page<CommentsTreeDto> findTreeByPostId(Long postId, int maxDepth, int maxReplies, Pageable pageable) {
+        String sql = "WITH RECURSIVE tree AS ("
+                + " (SELECT c.id, c.parent_id, c.created_at, 0 AS depth FROM comments c"
+                + "  WHERE c.post_id = :postId AND c.parent_id IS NULL"
+                + "  ORDER BY c.created_at DESC, c.id DESC LIMIT :limit OFFSET :offset)"
+                + " UNION ALL"
+                + " SELECT r.id, r.parent_id, r.created_at, t.depth + 1 FROM tree t"
+                + " CROSS JOIN LATERAL (SELECT c.id, c.parent_id, c.created_at FROM comments c"
+                + "  WHERE c.parent_id = t.id ORDER BY c.created_at DESC, c.id DESC LIMIT :maxReplies) r"
+                + " WHERE t.depth < :maxDepth) "
+                + "SELECT t.id, t.parent_id, c.content, c.created_at, c.updated_at, c.reply_count,"
+                + " c.created_by_id, (SELECT p.comment_count FROM posts p WHERE p.id = :postId) AS total_count "
+                + "FROM tree t JOIN comments c ON c.id = t.id "
+                + "ORDER BY t.depth, t.created_at DESC, t.id DESC";
+
+        Query query = entityManager().createNativeQuery(sql)
+                .setParameter("postId", postId)
+                .setParameter("limit", pageable.getPageSize())
+                .setParameter("offset", pageable.getOffset())
+                .setParameter("maxReplies", maxReplies)
+                .setParameter("maxDepth", maxDepth);
+        List<Object[]> rows = queryTimer.record(REPOSITORY, "tree", false, () -> fetchTreeRows(query));
+
+        if(rows.isEmpty() && pageable.getOffset() == 0){
+            return new PageImpl<>(new ArrayList<>(), pageable, 0);
+        }
+        // a page past the last one has no row to carry the total, so it is read on its own
+        Long totalCount = rows.isEmpty()
+                ? queryTimer.record(REPOSITORY, "count", false, () -> queryFactory
+                        .select(posts.commentCount)
+                        .from(posts)
+                        .where(posts.id.eq(postId))
+                        .fetchOne())
+                : (Long) rows.get(0)[7];
+        return new PageImpl<>(toTree(rows), pageable, totalCount == null ? 0 : totalCount);
+    }
+
+    /**
+     * The {@code <@} range over the root's path reads the whole thread from {@code idx_comments_path}.
+     * Rows are ordered by depth, so the tree is assembled in the same single pass.
+     */
+    @Override
+    public Optional<CommentsTreeDto> findSubtreeById(Long commentId) {
+        String sql = "SELECT c.id, c.parent_id, c.content, c.created_at, c.updated_at, c.reply_count,"
+                + " c.created_by_id, CAST(NULL AS BIGINT) AS total_count "
+                + "FROM comments c "
+                + "WHERE c.path <@ (SELECT r.path FROM comments r WHERE r.id = :commentId) "
+                + "ORDER BY nlevel(c.path), c.created_at DESC, c.id DESC";
+
+        Query query = entityManager().createNativeQuery(sql)
+                .setParameter("commentId", commentId);
+        List<Object[]> rows = queryTimer.record(REPOSITORY, "subtree", false, () -> fetchTreeRows(query));
+        return toTree(rows).stream().findFirst();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> fetchTreeRows(Query query) {
+        return query.unwrap(NativeQuery.class)
+                .addScalar("id", StandardBasicTypes.LONG)
+                .addScalar("parent_id", StandardBasicTypes.LONG)
+                .addScalar("content", StandardBasicTypes.STRING)
+                .addScalar("created_at", StandardBasicTypes.INSTANT)
+                .addScalar("updated_at", StandardBasicTypes.INSTANT)
+                .addScalar("reply_count", StandardBasicTypes.LONG)
+                .addScalar("created_by_id", StandardBasicTypes.LONG)
+                .addScalar("total_count", StandardBasicTypes.LONG)
+                .getResultList();
+    }
+
+    // rows come level by level, so every parent is placed before its replies;
+    // a row whose parent was not fetched is a root of the result
+    private static List<CommentsTreeDto> toTree(List<Object[]> rows) {
+        List<CommentsTreeDto> roots = new ArrayList<>();
+        Map<Long, CommentsTreeDto> byId = new HashMap<>();
+        for (Object[] row : rows) {
+            CommentsTreeDto node = CommentsTreeDto.builder()
+                    .id((Long) row[0])
+                    .parentId((Long) row[1])
+                    .content((String) row[2])
+                    .createdAt((Instant) row[3])
+                    .updatedAt((Instant) row[4])
+                    .replyCount((Long) row[5])
+                    .createdById((Long) row[6])
+                    .build();
+            byId.put(node.getId(), node);
+            CommentsTreeDto parent = node.getParentId() == null ? null : byId.get(node.getParentId());
+            if (parent == null) {
+                roots.add(node);
+            }
+            else {
+                parent.getReplies().add(node);
+            }
+        }
+        return roots;
+    }
 
-        return new PageImpl<>(contents, pageable, totalCount);
+    private EntityManager entityManager() {
+        return Objects.requireNonNull(getEntityManager());
     }
 
     private Querydsl querydsl() {
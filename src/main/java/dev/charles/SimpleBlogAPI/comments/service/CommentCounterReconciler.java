@@ -0,0 +1,27 @@
+package dev.charles.SimpleBlogAPI.comments.service;
+
+import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Repairs drift between the comment counter columns and the comments table.
+ * The counters are maintained by triggers, so drift only comes from manual data fixes.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CommentCounterReconciler {
+    private final CommentsRepository commentsRepository;
+
+    @Scheduled(cron = "${comments.counter.repair-cron:0 30 3 * * *}")
+    public void reconcile() {
+        int posts = commentsRepository.reconcileCommentCounts();
+        int comments = commentsRepository.reconcileReplyCounts();
+        if (posts > 0 || comments > 0) {
+            log.warn("Repaired comment counters: {} posts, {} comments", posts, comments);
+        }
+    }
+}
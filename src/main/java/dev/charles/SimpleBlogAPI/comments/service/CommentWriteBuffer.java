@@ -0,0 +1,333 @@
+package dev.charles.SimpleBlogAPI.comments.service;
+
+import dev.charles.SimpleBlogAPI.comments.domain.Comments;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
+import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
+import dev.charles.SimpleBlogAPI.errors.exception.TooManyRequestsException;
+import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
+import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.utils.persistence.ConstraintViolations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind path for comment creation, for threads that receive bursts of comments.
+ * Comments validated by the controller are queued in a bounded buffer and a single worker writes them in batches,
+ * one transaction per batch, so Hibernate's JDBC batching and {@code reWriteBatchedInserts}
+ * turn a burst into a few multi-row INSERTs instead of one transaction per comment.
+ * A full buffer rejects new comments instead of growing, and stopping the application context
+ * drains the buffer once the web server no longer accepts requests.
+ * When a batch violates a constraint, its comments are retried one transaction each, so an
+ * unknown post, parent or writer only drops that comment; dropped comments are logged with
+ * their provisional id. A transient failure, such as a pool timeout or a lost connection,
+ * keeps the comments and retries them with an exponential backoff until they are written
+ * or the drain timeout of a shutdown has passed. Any other failure is retried a few times
+ * before the comments are written one transaction each, so only the comment at fault is dropped.
+ * The client only receives the provisional id. Each written comment is logged at INFO with
+ * its provisional and comment id, and a dropped or lost comment is logged with its provisional id,
+ * but the client is never notified that an accepted comment was not written.
+ */
+@Component
+@Slf4j
+public class CommentWriteBuffer implements SmartLifecycle {
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(5);
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+    private final CommentsRepository commentsRepository;
+    private final PostsRepository postsRepository;
+    private final UsersRepository usersRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration drainTimeout;
+    private final Duration retryBackoff;
+    private final BlockingQueue<PendingComment> queue;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter lost;
+    private final Counter rejected;
+    private volatile boolean running;
+    // System.nanoTime() after which a shutdown stops retrying transient failures
+    private volatile long drainDeadline;
+    private Thread worker;
+
+    public CommentWriteBuffer(CommentsRepository commentsRepository, PostsRepository postsRepository,
+                              UsersRepository usersRepository,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${comments.write-behind.enabled:false}") boolean enabled,
+                              @Value("${comments.write-behind.capacity:10000}") int capacity,
+                              @Value("${comments.write-behind.batch-size:500}") int batchSize,
+                              @Value("${comments.write-behind.flush-interval:50ms}") Duration flushInterval,
+                              @Value("${comments.write-behind.drain-timeout:30s}") Duration drainTimeout,
+                              @Value("${comments.write-behind.retry-backoff:200ms}") Duration retryBackoff) {
+        this.commentsRepository = commentsRepository;
+        this.postsRepository = postsRepository;
+        this.usersRepository = usersRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.drainTimeout = drainTimeout;
+        this.retryBackoff = retryBackoff;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        Gauge.builder("comments.write_behind.pending", queue, BlockingQueue::size)
+                .description("Comments accepted but not yet written")
+                .register(meterRegistry);
+        this.written = outcome(meterRegistry, "written");
+        this.failed = outcome(meterRegistry, "failed");
+        this.lost = outcome(meterRegistry, "lost");
+        this.rejected = outcome(meterRegistry, "rejected");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a comment written by {@code userId} and returns its provisional id.
+     * Throws {@link TooManyRequestsException} when the buffer is full or no longer accepting.
+     */
+    public UUID enqueue(final CommentsRequestDto requestDto, final Long userId) {
+        PendingComment pending = new PendingComment(UUID.randomUUID(), userId,
+                requestDto.getPostId(), requestDto.getParentId(), requestDto.getContent());
+        if (!running || !queue.offer(pending)) {
+            rejected.increment();
+            throw new TooManyRequestsException("Comment buffer is full or draining");
+        }
+        return pending.provisionalId();
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "comment-write-behind");
+        worker.start();
+    }
+
+    /**
+     * Stops accepting comments, lets the worker write what is queued and writes whatever
+     * was queued after it exited on the calling thread. Comments still queued when the worker
+     * does not exit in time are counted and logged as lost.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        drainDeadline = System.nanoTime() + drainTimeout.toNanos();
+        running = false;
+        List<PendingComment> rest = new ArrayList<>();
+        try {
+            // the worker gives up within one backoff of the deadline
+            worker.join(drainTimeout.plus(MAX_BACKOFF).toMillis());
+            queue.drainTo(rest);
+            if (worker.isAlive()) {
+                lose(rest, "worker did not drain within " + drainTimeout, null);
+                return;
+            }
+            if (!rest.isEmpty()) {
+                write(rest);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            queue.drainTo(rest);
+            lose(rest, "was interrupted while draining", ex);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stops after the web server (DEFAULT_PHASE - 2048) so no request enqueues during the drain
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void run() {
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingComment first = queue.poll(flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                lose(batch, "was interrupted", ex);
+                return;
+            }
+            catch (RuntimeException ex) {
+                lose(batch, "failed unexpectedly", ex);
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // retries failures with the comments not yet written or dropped, which are left in pending
+    private void write(List<PendingComment> pending) throws InterruptedException {
+        Duration backoff = retryBackoff;
+        int failedAttempts = 0;
+        while (!pending.isEmpty()) {
+            try {
+                if (failedAttempts < MAX_BATCH_ATTEMPTS) {
+                    writeAll(pending);
+                }
+                else {
+                    writeEach(pending);
+                }
+            }
+            catch (RuntimeException ex) {
+                if (!running && System.nanoTime() - drainDeadline > 0) {
+                    lose(pending, "gave up after the drain timeout", ex);
+                    return;
+                }
+                if (!isTransient(ex) && ++failedAttempts == MAX_BATCH_ATTEMPTS) {
+                    log.warn("Comment write-behind failed {} times to write {} comments, writing them one by one",
+                            failedAttempts, pending.size(), ex);
+                    continue;
+                }
+                log.warn("Comment write-behind could not write {} comments, retrying in {}", pending.size(), backoff, ex);
+                Thread.sleep(backoff.toMillis());
+                Duration doubled = backoff.multipliedBy(2);
+                backoff = doubled.compareTo(MAX_BACKOFF) < 0 ? doubled : MAX_BACKOFF;
+            }
+        }
+    }
+
+    /**
+     * Writes {@code pending} in one transaction, or one transaction per comment when the batch
+     * violates a constraint, and removes the comments that were written or dropped.
+     * Any other failure of the batch is thrown with the remaining comments left in {@code pending}.
+     */
+    private void writeAll(List<PendingComment> pending) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> persistAll(pending));
+            logWritten(pending, ids);
+            written.increment(pending.size());
+            pending.clear();
+            return;
+        }
+        catch (DataIntegrityViolationException ex) {
+            log.debug("Comment write-behind batch of {} comments violates a constraint, retrying one by one", pending.size(), ex);
+        }
+        writeEach(pending);
+    }
+
+    /**
+     * Writes {@code pending} one transaction per comment and removes the comments that were written or dropped.
+     * A transient failure is thrown with the remaining comments left in {@code pending}.
+     */
+    private void writeEach(List<PendingComment> pending) {
+        for (Iterator<PendingComment> comments = pending.iterator(); comments.hasNext(); ) {
+            writeOne(comments.next());
+            comments.remove();
+        }
+    }
+
+    private void writeOne(PendingComment pending) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> persistAll(List.of(pending)));
+            logWritten(List.of(pending), ids);
+            written.increment();
+        }
+        catch (RuntimeException ex) {
+            if (isTransient(ex)) {
+                throw ex;
+            }
+            failed.increment();
+            log.warn("Buffered comment {} on post {} was dropped: {}", pending.provisionalId(), pending.postId(),
+                    Objects.toString(ConstraintViolations.constraintName(ex), ex.getMessage()));
+        }
+    }
+
+    private void lose(List<PendingComment> pending, String reason, Exception ex) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        lost.increment(pending.size());
+        log.error("Comment write-behind {}, {} buffered comments were lost: {}", reason,
+                pending.size(), pending.stream().map(PendingComment::provisionalId).toList(), ex);
+        pending.clear();
+    }
+
+    private static boolean isTransient(RuntimeException ex) {
+        return ex instanceof TransientDataAccessException
+                || ex instanceof RecoverableDataAccessException
+                || ex instanceof CannotCreateTransactionException;
+    }
+
+    // flushes inside the transaction so that constraint violations surface translated by the repository
+    private List<Long> persistAll(List<PendingComment> pending) {
+        List<Long> ids = pending.stream().map(this::persist).toList();
+        commentsRepository.flush();
+        return ids;
+    }
+
+    // the only record that ties a provisional id handed out with 202 to the comment id
+    private static void logWritten(List<PendingComment> written, List<Long> ids) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        StringJoiner pairs = new StringJoiner(", ");
+        for (int i = 0; i < written.size(); i++) {
+            pairs.add(written.get(i).provisionalId() + "=" + ids.get(i));
+        }
+        log.info("Wrote {} buffered comments: {}", written.size(), pairs);
+    }
+
+    private Long persist(PendingComment pending) {
+        Comments parentComment = pending.parentId() == null
+                ? null : commentsRepository.getReferenceById(pending.parentId());
+        return commentsRepository.save(Comments.builder()
+                .content(pending.content())
+                .user(usersRepository.getReferenceById(pending.userId()))
+                .post(postsRepository.getReferenceById(pending.postId()))
+                .parentComment(parentComment)
+                .build())
+                .getId();
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("comments.write_behind")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record PendingComment(UUID provisionalId, Long userId, Long postId, Long parentId, String content) {
+    }
+}
@@ -3,20 +3,40 @@ package dev.charles.SimpleBlogAPI.comments.service;
 import dev.charles.SimpleBlogAPI.comments.domain.Comments;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsTreeDto;
 import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
 import dev.charles.SimpleBlogAPI.errors.exception.NotAuthorizedException;
 import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
-import dev.charles.SimpleBlogAPI.posts.domain.Posts;
 import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
+import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.users.service.AuthorCache;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkImporter;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
+import dev.charles.SimpleBlogAPI.utils.persistence.ConstraintViolations;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
@@ -24,37 +44,122 @@ public class CommentsService {
     private final CommentsRepository commentsRepository;
     private final PostsRepository postsRepository;
     private final UsersRepository usersRepository;
+    private final BulkImporter bulkImporter;
+    private final AuthorCache authorCache;
+    private final CommentWriteBuffer commentWriteBuffer;
 
+    /**
+     * Inserts the comment with the post and parent referenced by id, without loading them.
+     * The writer comes from the natural id cache, so the happy path is the INSERT alone;
+     * an unknown post or parent fails that INSERT on its foreign key and is reported as not found.
+     */
     @Transactional
     public void createComment(final CommentsRequestDto requestDto, final String email) {
-        Posts post =postsRepository.findById(requestDto.getPostId())
-                .orElseThrow(()-> new NotFoundResourceException("Post not found by id: "+ requestDto.getPostId()));
         Users user = usersRepository.findByEmail(email)
                 .orElseThrow(()-> new NotFoundResourceException("User not found by email: " + email));
-        Comments parentComment = commentsRepository.findById(requestDto.getParentId()).orElseGet(()-> null);
+        Comments parentComment = requestDto.getParentId() == null
+                ? null : commentsRepository.getReferenceById(requestDto.getParentId());
         Comments newComment = Comments.builder()
                 .content(requestDto.getContent())
                 .user(user)
-                .post(post)
+                .post(postsRepository.getReferenceById(requestDto.getPostId()))
                 .parentComment(parentComment)
                 .build();
-        commentsRepository.save(newComment);
+        try {
+            commentsRepository.saveAndFlush(newComment);
+        }
+        catch (DataIntegrityViolationException ex) {
+            throw switch (Objects.toString(ConstraintViolations.constraintName(ex), "")) {
+                case "fk_comments_post_id" -> new NotFoundResourceException("Post not found by id: " + requestDto.getPostId());
+                case "fk_comments_parent_id" -> new NotFoundResourceException("Parent comment not found by id: " + requestDto.getParentId());
+                case "fk_comments_created_by_id" -> new NotFoundResourceException("User not found by email: " + email);
+                default -> ex;
+            };
+        }
+    }
+
+    public boolean isBuffered() {
+        return commentWriteBuffer.isEnabled();
+    }
+
+    /**
+     * Queues the comment for the write-behind worker and returns its provisional id.
+     * The writer comes from the natural id cache, so accepting a comment does not touch the comments table;
+     * an unknown post or parent is only detected when the batch is written.
+     */
+    public UUID bufferComment(final CommentsRequestDto requestDto, final String email) {
+        Long userId = usersRepository.findByEmail(email)
+                .orElseThrow(()-> new NotFoundResourceException("User not found by email: " + email))
+                .getId();
+        return commentWriteBuffer.enqueue(requestDto, userId);
+    }
+
+    /**
+     * Imports a JSON array or NDJSON stream of comments written by {@code email}.
+     * Posts and parent comments are referenced by id without being loaded;
+     * an unknown id fails that item on the foreign key instead.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importComments(final String email, final InputStream body, final Consumer<BulkItemResult> report) {
+        Long userId = usersRepository.findByEmail(email)
+                .orElseThrow(()-> new NotFoundResourceException("User not found by email: " + email))
+                .getId();
+        bulkImporter.importAll(body, CommentsRequestDto.class, requestDto -> {
+            Comments parentComment = requestDto.getParentId() == null
+                    ? null : commentsRepository.getReferenceById(requestDto.getParentId());
+            Comments newComment = Comments.builder()
+                    .content(requestDto.getContent())
+                    .user(usersRepository.getReferenceById(userId))
+                    .post(postsRepository.getReferenceById(requestDto.getPostId()))
+                    .parentComment(parentComment)
+                    .build();
+            return commentsRepository.save(newComment).getId();
+        }, report);
     }
 
     public Page<CommentsResponseDto> getCommentsByPostId(final Long postId, final Integer pageNumber) {
         int pageSize = 10;
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
-        return commentsRepository.findAllParentsByPostId(postId, pageable);
+        return withAuthors(commentsRepository.findAllParentsByPostId(postId, pageable));
 
     }
 
     public Page<CommentsResponseDto> getRepliesByParentId(Long parentId, final Integer pageNumber) {
         int pageSize = 10;
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
-        return commentsRepository.findAllChildrenByParentId(parentId, pageable);
+        return withAuthors(commentsRepository.findAllChildrenByParentId(parentId, pageable));
 
     }
 
+    public CursorPage<CommentsResponseDto> getCommentsByPostIdAfter(final Long postId, final String after) {
+        int pageSize = 10;
+        return withAuthors(commentsRepository.findAllParentsByPostIdAfter(postId, Cursors.decodeCreatedAt(after), pageSize));
+    }
+
+    public CursorPage<CommentsResponseDto> getRepliesByParentIdAfter(final Long parentId, final String after) {
+        int pageSize = 10;
+        return withAuthors(commentsRepository.findAllChildrenByParentIdAfter(parentId, Cursors.decodeCreatedAt(after), pageSize));
+    }
+
+    public Page<CommentsTreeDto> getCommentTree(final Long postId, final Integer pageNumber, final int depth, final int replies) {
+        int pageSize = 10;
+        Pageable pageable = PageRequest.of(pageNumber, pageSize);
+        Page<CommentsTreeDto> tree = commentsRepository.findTreeByPostId(postId, depth, replies, pageable);
+        attachTreeAuthors(tree.getContent());
+        return tree;
+    }
+
+    public CommentsTreeDto getThread(final Long commentId) {
+        CommentsTreeDto thread = commentsRepository.findSubtreeById(commentId)
+                .orElseThrow(() -> new NotFoundResourceException("Comment not found by id: "+commentId));
+        attachTreeAuthors(List.of(thread));
+        return thread;
+    }
+
+    public long countThreadReplies(final Long commentId) {
+        return commentsRepository.countDescendantsById(commentId);
+    }
+
     @Transactional
     public void updateComment(final Long commentId, final String updateComment, final String email) {
         Comments comment = commentsRepository.findById(commentId)
@@ -68,7 +173,39 @@ public class CommentsService {
         Comments comment = commentsRepository.findById(commentId)
                 .orElseThrow(() -> new NotFoundResourceException("Comment not found by id: "+commentId));
         hasAuthorized(comment.getCreatedBy(), email);
-        commentsRepository.delete(comment);
+        commentsRepository.bulkDeleteById(commentId);
+    }
+
+    private Page<CommentsResponseDto> withAuthors(Page<CommentsResponseDto> page) {
+        attachAuthors(page.getContent());
+        return page;
+    }
+
+    private CursorPage<CommentsResponseDto> withAuthors(CursorPage<CommentsResponseDto> page) {
+        attachAuthors(page.getContent());
+        return page;
+    }
+
+    // one cache lookup per page, and one IN query for the authors it misses
+    private void attachAuthors(List<CommentsResponseDto> comments) {
+        Map<Long, UserDto> authors = authorCache.getAll(comments.stream()
+                .map(CommentsResponseDto::getCreatedById)
+                .collect(Collectors.toSet()));
+        comments.forEach(comment -> comment.attachAuthor(authors.get(comment.getCreatedById())));
+    }
+
+    private void attachTreeAuthors(List<CommentsTreeDto> roots) {
+        List<CommentsTreeDto> nodes = new ArrayList<>();
+        Deque<CommentsTreeDto> pending = new ArrayDeque<>(roots);
+        while (!pending.isEmpty()) {
+            CommentsTreeDto node = pending.poll();
+            nodes.add(node);
+            pending.addAll(node.getReplies());
+        }
+        Map<Long, UserDto> authors = authorCache.getAll(nodes.stream()
+                .map(CommentsTreeDto::getCreatedById)
+                .collect(Collectors.toSet()));
+        nodes.forEach(node -> node.attachAuthor(authors.get(node.getCreatedById())));
     }
 
     private void hasAuthorized(final Users user, final String email){
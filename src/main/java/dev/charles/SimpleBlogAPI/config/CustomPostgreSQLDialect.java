@@ -16,9 +16,48 @@ public class CustomPostgreSQLDialect extends PostgreSQLDialect{
         super.initializeFunctionRegistry(functionContributions);
         BasicType<Boolean> resolveType = functionContributions.getTypeConfiguration()
                 .getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN);
+        BasicType<Double> doubleType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+        BasicType<String> stringType = functionContributions.getTypeConfiguration()
+                .getBasicTypeRegistry().resolve(StandardBasicTypes.STRING);
         functionContributions.getFunctionRegistry()
                 .registerPattern("search_text",
                         "?1 @@ websearch_to_tsquery(?2::regconfig, ?3)"
                         , resolveType);
+        // pins a search to the partial indexes of one text search configuration
+        functionContributions.getFunctionRegistry()
+                .registerPattern("search_config_is",
+                        "?1 = ?2::regconfig"
+                        , resolveType);
+        // substring fallback for unsegmented CJK text, matching the trigram index on title || ' ' || content
+        functionContributions.getFunctionRegistry()
+                .registerPattern("ngram_match",
+                        "(?1 || ' ' || ?2) ilike ?3"
+                        , resolveType);
+        // cover density rank, needs the positions kept in post_tsv
+        functionContributions.getFunctionRegistry()
+                .registerPattern("search_rank",
+                        "ts_rank_cd(?1, websearch_to_tsquery(?2::regconfig, ?3))"
+                        , doubleType);
+        // highlighted fragments of ?2, parsed again from the text, so call it only for rows that are returned
+        functionContributions.getFunctionRegistry()
+                .registerPattern("search_headline",
+                        "ts_headline(?1::regconfig, ?2, websearch_to_tsquery(?1::regconfig, ?3), ?4)"
+                        , stringType);
+        // substring or pg_trgm similarity match, both served by the trigram indexes on the bare column
+        functionContributions.getFunctionRegistry()
+                .registerPattern("trgm_match",
+                        "(?1 ilike ?2 or ?1 % ?3)"
+                        , resolveType);
+        // row comparison, so a (created_at, id) keyset seeks the composite index instead of filtering an OR
+        functionContributions.getFunctionRegistry()
+                .registerPattern("keyset_before",
+                        "((?1, ?2) < (?3, ?4))"
+                        , resolveType);
+        // pg_trgm distance, 1 - similarity(), so ascending order ranks the most similar first
+        functionContributions.getFunctionRegistry()
+                .registerPattern("trgm_distance",
+                        "(?1 <-> ?2)"
+                        , doubleType);
     }
-}
\ No newline at end of file
+}
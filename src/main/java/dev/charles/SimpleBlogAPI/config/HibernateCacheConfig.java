@@ -0,0 +1,53 @@
+package dev.charles.SimpleBlogAPI.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import dev.charles.SimpleBlogAPI.users.domain.Users;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Backs Hibernate's second-level cache with in-process Caffeine caches through JCache.
+ * The regions are created up front so that they are bounded; JCache would otherwise
+ * create them on demand without a size limit.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${users.cache.maximum-size:10000}") long maximumSize,
+            @Value("${users.cache.expire-after-write:30m}") Duration expireAfterWrite) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // one manager per application context, the provider's default one is a JVM-wide singleton
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("urn:hibernate:" + UUID.randomUUID()), provider.getDefaultClassLoader());
+        cacheManager.createCache(Users.CACHE_REGION, regionConfiguration(maximumSize, expireAfterWrite));
+        cacheManager.createCache(Users.NATURAL_ID_CACHE_REGION, regionConfiguration(maximumSize, expireAfterWrite));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfiguration(long maximumSize, Duration expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(expireAfterWrite.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
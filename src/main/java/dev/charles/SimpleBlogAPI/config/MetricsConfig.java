@@ -0,0 +1,23 @@
+package dev.charles.SimpleBlogAPI.config;
+
+import dev.charles.SimpleBlogAPI.utils.metrics.QueryTimer;
+import dev.charles.SimpleBlogAPI.utils.security.introspector.TimedOpaqueTokenIntrospector;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    // endpoints fall back to the raw path before dispatching, so cap how many distinct ones are kept
+    @Bean
+    public MeterFilter queryEndpointCardinalityLimit(@Value("${metrics.endpoint.max-tags:100}") int maxTags) {
+        return MeterFilter.maximumAllowableTags(QueryTimer.METRIC, "endpoint", maxTags, MeterFilter.deny());
+    }
+
+    @Bean
+    public MeterFilter introspectionEndpointCardinalityLimit(@Value("${metrics.endpoint.max-tags:100}") int maxTags) {
+        return MeterFilter.maximumAllowableTags(TimedOpaqueTokenIntrospector.METRIC, "endpoint", maxTags, MeterFilter.deny());
+    }
+}
@@ -1,7 +1,12 @@
 package dev.charles.SimpleBlogAPI.config;
 
+import dev.charles.SimpleBlogAPI.utils.security.introspector.CachingOpaqueTokenIntrospector;
 import dev.charles.SimpleBlogAPI.utils.security.introspector.GoogleOpaqueTokenIntrospector;
+import dev.charles.SimpleBlogAPI.utils.security.introspector.TimedOpaqueTokenIntrospector;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -49,12 +54,21 @@ public class SecurityConfig {
     }
 
     @Bean
-    public OpaqueTokenIntrospector introspector(RestTemplateBuilder builder, OAuth2ResourceServerProperties properties) {
+    public OpaqueTokenIntrospector introspector(RestTemplateBuilder builder, OAuth2ResourceServerProperties properties,
+                                                MeterRegistry meterRegistry,
+                                                @Value("${introspection.cache.maximum-size:10000}") long maximumSize,
+                                                @Value("${introspection.cache.max-age:5m}") Duration maxAge) {
+        // java.net.http blocks by parking, which keeps virtual request threads off their carriers
         RestOperations rest = builder
+                .requestFactoryBuilder(ClientHttpRequestFactoryBuilder.jdk())
                 .connectTimeout(Duration.of(30, ChronoUnit.SECONDS))
                 .readTimeout(Duration.of(30, ChronoUnit.SECONDS))
                 .build();
 
-        return new GoogleOpaqueTokenIntrospector(properties.getOpaquetoken().getIntrospectionUri(), rest);
+        OpaqueTokenIntrospector google = new GoogleOpaqueTokenIntrospector(properties.getOpaquetoken().getIntrospectionUri(), rest);
+        OpaqueTokenIntrospector timed = new TimedOpaqueTokenIntrospector(google, meterRegistry);
+        CachingOpaqueTokenIntrospector caching = new CachingOpaqueTokenIntrospector(timed, maximumSize, maxAge);
+        caching.bindTo(meterRegistry);
+        return caching;
     }
 }
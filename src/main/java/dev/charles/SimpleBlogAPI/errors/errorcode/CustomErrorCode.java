@@ -12,6 +12,7 @@ public enum CustomErrorCode implements ErrorCode {
     RESOURCE_NOT_FOUND(HttpStatus.NOT_FOUND, "Cannot find resource."),
     DUPLICATED_RESOURCE(HttpStatus.CONFLICT, "Duplicated resource"),
     NOT_AUTHORIZED(HttpStatus.UNAUTHORIZED, "Not Authorized user"),
+    TOO_MANY_REQUESTS(HttpStatus.TOO_MANY_REQUESTS, "Too many requests, retry later"),
     ;
 
     private final HttpStatus httpStatus;
@@ -0,0 +1,9 @@
+package dev.charles.SimpleBlogAPI.errors.exception;
+
+import dev.charles.SimpleBlogAPI.errors.errorcode.CustomErrorCode;
+
+public class TooManyRequestsException extends RestApiException {
+    public TooManyRequestsException(String message) {
+        super(CustomErrorCode.TOO_MANY_REQUESTS, message);
+    }
+}
@@ -1,7 +1,15 @@
 package dev.charles.SimpleBlogAPI.posts.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSnapshot;
 import dev.charles.SimpleBlogAPI.posts.service.PostsService;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult;
+import dev.charles.SimpleBlogAPI.utils.bulk.NdjsonWriter;
+import dev.charles.SimpleBlogAPI.utils.http.ETags;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -12,6 +20,11 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,6 +32,7 @@ import org.springframework.web.bind.annotation.*;
 @Validated
 public class PostsController {
     final private PostsService postsService;
+    final private ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<?> save(@AuthenticationPrincipal OAuth2AuthenticatedPrincipal principal, @RequestBody PostDto postDto){
@@ -26,6 +40,23 @@ public class PostsController {
         return new ResponseEntity<>(null, HttpStatus.CREATED);
     }
 
+    /**
+     * Imports a JSON array or NDJSON stream of posts and answers with one NDJSON result line per item.
+     * The body is read while the response is written, so neither side is buffered in full.
+     */
+    @PostMapping(path = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkImport(
+            @AuthenticationPrincipal OAuth2AuthenticatedPrincipal principal,
+            InputStream body) {
+        String email = principal.getAttribute("email");
+        StreamingResponseBody stream = out -> postsService.importPosts(email, body, new NdjsonWriter<>(objectMapper, BulkItemResult.class, out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(stream);
+    }
+
     @PutMapping
     public ResponseEntity<?> update(@RequestParam(value = "id") Long id, @RequestBody PostDto postDto){
         postsService.updatePost(id, postDto);
@@ -38,19 +69,30 @@ public class PostsController {
         return new ResponseEntity<>(null, HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Tagged with the post's {@code @Version}. Spring answers a matching {@code If-None-Match}
+     * with 304 before the body is serialized, and a cached post never reaches the database.
+     */
     @GetMapping
     public ResponseEntity<?> getPost(@RequestParam(value = "id") Long id){
-        PostDto postDto = postsService.getPostById(id);
-        return new ResponseEntity<>(postDto, HttpStatus.OK);
+        PostSnapshot post = postsService.getPostSnapshot(id);
+        String etag = ETags.ofVersion("post", id, post.version());
+        return ResponseEntity.ok().eTag(etag).body(post.toDto());
     }
 
+    /**
+     * Listings are tagged with a hash of the page, so an unchanged page is answered with 304
+     * and no body. The query still runs, since only the rows tell whether the page changed.
+     */
     @GetMapping(path = "/paged")
     public ResponseEntity<Page<PostDto>> getPostsByKeyword(
             @NotNull @RequestParam(value = "isSearchMode", defaultValue = "false") Boolean isSearchMode,
             @RequestParam(value = "keyword" , required = false, defaultValue = "") String keyword,
+            @RequestParam(value = "lang", required = false) String lang,
             @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber){
-        Page<PostDto> result = postsService.getAllPosts(isSearchMode, keyword, pageNumber);
-        return new ResponseEntity<>(result, HttpStatus.OK);
+        Page<PostDto> result = postsService.getAllPosts(isSearchMode, keyword, lang, pageNumber);
+        String etag = ETags.ofPage(result, PostsController::fingerprint);
+        return ResponseEntity.ok().eTag(etag).body(result);
     }
 
     @GetMapping(path = "/paged/user")
@@ -58,11 +100,68 @@ public class PostsController {
             @NotNull @RequestParam(value = "isSearchMode", defaultValue = "false") Boolean isSearchMode,
             @RequestParam(value = "keyword" , required = false, defaultValue = "") String keyword,
             @NotNull @RequestParam(value = "email") String email,
+            @RequestParam(value = "lang", required = false) String lang,
             @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber){
-        Page<PostDto> result = postsService.getAllPostsByUser(isSearchMode, email, keyword, pageNumber);
+        Page<PostDto> result = postsService.getAllPostsByUser(isSearchMode, email, keyword, lang, pageNumber);
+        String etag = ETags.ofPage(result, PostsController::fingerprint);
+        return ResponseEntity.ok().eTag(etag).body(result);
+    }
+
+    /**
+     * Ranked variant of /paged search: the most relevant posts first, each with a score
+     * and a highlighted snippet of the content.
+     */
+    @GetMapping(path = "/search")
+    public ResponseEntity<Page<PostSearchResultDto>> searchPosts(
+            @NotBlank @RequestParam(value = "keyword") String keyword,
+            @RequestParam(value = "lang", required = false) String lang,
+            @RequestParam(value = "pageNumber", defaultValue = "0") Integer pageNumber){
+        Page<PostSearchResultDto> result = postsService.searchPosts(keyword, lang, pageNumber);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    /**
+     * Streams every post of a user as NDJSON, one post per line.
+     * It is a plain download, so it does not require a JSON request content type.
+     */
+    @GetMapping(path = "/export", consumes = MediaType.ALL_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPostsByEmail(
+            @NotNull @RequestParam(value = "email") String email){
+        StreamingResponseBody stream = out -> postsService.exportPostsByUser(email, new NdjsonWriter<>(objectMapper, PostDto.class, out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(stream);
+    }
+
+    /**
+     * Keyset variant of /paged, selected by the presence of {@code after}.
+     * Pass an empty {@code after} for the first page and the returned {@code nextCursor} afterwards.
+     */
+    @GetMapping(path = "/paged", params = "after")
+    public ResponseEntity<CursorPage<PostDto>> getPostsByKeywordAfter(
+            @RequestParam(value = "keyword" , required = false, defaultValue = "") String keyword,
+            @RequestParam(value = "lang", required = false) String lang,
+            @RequestParam(value = "after") String after){
+        CursorPage<PostDto> result = postsService.getAllPostsAfter(keyword, lang, after);
+        String etag = ETags.ofPage(result, PostsController::fingerprint);
+        return ResponseEntity.ok().eTag(etag).body(result);
+    }
+
+    @GetMapping(path = "/paged/user", params = "after")
+    public ResponseEntity<CursorPage<PostDto>> getPostsByKeywordAndEmailAfter(
+            @RequestParam(value = "keyword" , required = false, defaultValue = "") String keyword,
+            @NotNull @RequestParam(value = "email") String email,
+            @RequestParam(value = "lang", required = false) String lang,
+            @RequestParam(value = "after") String after){
+        CursorPage<PostDto> result = postsService.getAllPostsByUserAfter(email, keyword, lang, after);
+        String etag = ETags.ofPage(result, PostsController::fingerprint);
+        return ResponseEntity.ok().eTag(etag).body(result);
+    }
+
+    private static List<?> fingerprint(PostDto post) {
+        return Arrays.asList(post.getTitle(), post.getContent());
+    }
+
 
 
 
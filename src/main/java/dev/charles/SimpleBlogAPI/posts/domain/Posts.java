@@ -6,6 +6,9 @@ import dev.charles.SimpleBlogAPI.users.domain.BaseEntity;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnTransformer;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,7 +18,8 @@ import java.util.List;
 @Getter
 public class Posts extends BaseEntity {
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "posts_id_seq")
+    @SequenceGenerator(name = "posts_id_seq", sequenceName = "posts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -26,19 +30,32 @@ public class Posts extends BaseEntity {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Users createdBy;
 
-    @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
+    // removed by ON DELETE CASCADE, so deleting a post never loads them
+    @OneToMany(mappedBy = "post")
     private List<Comments> comments = new ArrayList<>();
+
+    // maintained by the trigger on comments
+    @Column(name = "comment_count", insertable = false, updatable = false)
+    private Long commentCount;
     @Version
     private Long version;
 
+    // regconfig that post_tsv is generated with, detected from the text on every write
+    @Column(name = "search_config", nullable = false, columnDefinition = "regconfig")
+    @ColumnTransformer(write = "?::regconfig")
+    private String searchConfig;
+
     public Posts(String title, String content){
         this.title = title;
         this.content = content;
+        this.searchConfig = SearchLanguage.detect(title + " " + content).getRegconfig();
     }
 
-    @Column(name = "post_tsv", columnDefinition = "tsvector",insertable = false)
+    // generated by Postgres, writing it in an UPDATE fails
+    @Column(name = "post_tsv", columnDefinition = "tsvector", insertable = false, updatable = false)
     private String post_tsv;
 
     public static Posts of(PostDto postDto){
@@ -47,6 +64,7 @@ public class Posts extends BaseEntity {
     public void update(PostDto postDto){
         this.content = postDto.getContent();
         this.title = postDto.getTitle();
+        this.searchConfig = SearchLanguage.detect(title + " " + content).getRegconfig();
     }
 
     public void setUser(Users user){
@@ -0,0 +1,57 @@
+package dev.charles.SimpleBlogAPI.posts.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Text search configuration a post is indexed and searched with.
+ * Postgres ships no Korean, Japanese or Chinese parser, so those posts are indexed with {@code simple}
+ * and searches also match substrings through a trigram index, since words there are rarely
+ * separated from their particles by spaces.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum SearchLanguage {
+    ENGLISH("english", false),
+    CJK("simple", true),
+    ;
+
+    private static final Set<Character.UnicodeScript> CJK_SCRIPTS = Set.of(
+            Character.UnicodeScript.HANGUL,
+            Character.UnicodeScript.HAN,
+            Character.UnicodeScript.HIRAGANA,
+            Character.UnicodeScript.KATAKANA);
+
+    private final String regconfig;
+    private final boolean substringFallback;
+
+    /**
+     * Picks {@link #CJK} as soon as {@code text} contains a Hangul, Han or kana character.
+     */
+    public static SearchLanguage detect(String text) {
+        if (text == null) {
+            return ENGLISH;
+        }
+        boolean cjk = text.codePoints().anyMatch(codePoint -> CJK_SCRIPTS.contains(Character.UnicodeScript.of(codePoint)));
+        return cjk ? CJK : ENGLISH;
+    }
+
+    /**
+     * Maps a {@code lang} request parameter such as {@code en} or {@code ko} to a configuration,
+     * falling back to detecting it from {@code keyword} when no language is given.
+     */
+    public static SearchLanguage resolve(String lang, String keyword) {
+        if (!StringUtils.hasText(lang)) {
+            return detect(keyword);
+        }
+        return switch (lang.trim().toLowerCase(Locale.ROOT)) {
+            case "en", "english" -> ENGLISH;
+            case "ko", "ja", "zh", "cjk", "simple" -> CJK;
+            default -> throw new IllegalArgumentException("Unsupported search language: " + lang);
+        };
+    }
+}
@@ -1,14 +1,21 @@
 package dev.charles.SimpleBlogAPI.posts.dto;
 
+import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Length;
 import org.springframework.data.annotation.PersistenceCreator;
 
 @Getter
 @NoArgsConstructor
 public class PostDto {
+    @NotBlank(message = "Input title")
+    @Length(max = 255, message = "input less than 255 length")
     private String title;
+
+    @NotBlank(message = "Input content")
+    @Length(max = 255, message = "input less than 255 length")
     private String content;
 
     @PersistenceCreator
@@ -0,0 +1,28 @@
+package dev.charles.SimpleBlogAPI.posts.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * One ranked full-text search hit.
+ * {@code snippet} is HTML markup: the matching fragments of the content, HTML-escaped,
+ * with only the matched terms wrapped in {@code <b>} tags. Clients should render it as HTML
+ * rather than escape it again. {@code score} is the {@code ts_rank_cd} of the post, higher being more relevant.
+ */
+@Getter
+@NoArgsConstructor
+public class PostSearchResultDto {
+    private Long id;
+    private String title;
+    private String snippet;
+    private double score;
+
+    @Builder
+    public PostSearchResultDto(Long id, String title, String snippet, double score){
+        this.id = id;
+        this.title = title;
+        this.snippet = snippet;
+        this.score = score;
+    }
+}
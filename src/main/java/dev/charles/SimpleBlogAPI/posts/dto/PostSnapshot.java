@@ -0,0 +1,11 @@
+package dev.charles.SimpleBlogAPI.posts.dto;
+
+/**
+ * A post as cached by {@code PostsCache}, together with the {@code @Version} it was read at.
+ */
+public record PostSnapshot(Long version, String title, String content) {
+
+    public PostDto toDto() {
+        return new PostDto(title, content);
+    }
+}
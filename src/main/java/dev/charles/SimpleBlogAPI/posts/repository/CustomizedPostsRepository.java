@@ -1,10 +1,40 @@
 package dev.charles.SimpleBlogAPI.posts.repository;
 
+import dev.charles.SimpleBlogAPI.posts.domain.SearchLanguage;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+/**
+ * Keyword searches only match posts indexed with the given {@link SearchLanguage}.
+ * The overloads without one detect it from the keyword.
+ */
 public interface CustomizedPostsRepository {
-    Page<PostDto> findAllByKeyword(boolean isSearchMode, String keyword, Pageable pageable);
-    Page<PostDto> findAllByKeywordAndEmail(boolean isSearchMode, String keyword, String email, Pageable pageable);
+    Page<PostDto> findAllByKeyword(boolean isSearchMode, String keyword, SearchLanguage language, Pageable pageable);
+    Page<PostDto> findAllByKeywordAndEmail(boolean isSearchMode, String keyword, String email, SearchLanguage language, Pageable pageable);
+    CursorPage<PostDto> findAllByKeywordAfter(String keyword, SearchLanguage language, Long cursor, int pageSize);
+    CursorPage<PostDto> findAllByKeywordAndEmailAfter(String keyword, String email, SearchLanguage language, Long cursor, int pageSize);
+    Page<PostSearchResultDto> searchRanked(String keyword, SearchLanguage language, Pageable pageable);
+
+    default Page<PostDto> findAllByKeyword(boolean isSearchMode, String keyword, Pageable pageable) {
+        return findAllByKeyword(isSearchMode, keyword, SearchLanguage.detect(keyword), pageable);
+    }
+
+    default Page<PostDto> findAllByKeywordAndEmail(boolean isSearchMode, String keyword, String email, Pageable pageable) {
+        return findAllByKeywordAndEmail(isSearchMode, keyword, email, SearchLanguage.detect(keyword), pageable);
+    }
+
+    default CursorPage<PostDto> findAllByKeywordAfter(String keyword, Long cursor, int pageSize) {
+        return findAllByKeywordAfter(keyword, SearchLanguage.detect(keyword), cursor, pageSize);
+    }
+
+    default CursorPage<PostDto> findAllByKeywordAndEmailAfter(String keyword, String email, Long cursor, int pageSize) {
+        return findAllByKeywordAndEmailAfter(keyword, email, SearchLanguage.detect(keyword), cursor, pageSize);
+    }
+
+    default Page<PostSearchResultDto> searchRanked(String keyword, Pageable pageable) {
+        return searchRanked(keyword, SearchLanguage.detect(keyword), pageable);
+    }
 }
@@ -1,134 +1,295 @@
 package dev.charles.SimpleBlogAPI.posts.repository;
 
-import com.querydsl.core.types.Projections;
+import com.querydsl.core.Tuple;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.Expressions;
-import com.querydsl.jpa.JPQLQuery;
-import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.core.types.dsl.StringExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
+import dev.charles.SimpleBlogAPI.posts.domain.SearchLanguage;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
+import dev.charles.SimpleBlogAPI.utils.metrics.QueryTimer;
+import dev.charles.SimpleBlogAPI.utils.pagination.CountMode;
+import dev.charles.SimpleBlogAPI.utils.pagination.CountQuery;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
+import dev.charles.SimpleBlogAPI.utils.search.Headlines;
+import dev.charles.SimpleBlogAPI.utils.search.LikePatterns;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.function.LongSupplier;
 
 import static dev.charles.SimpleBlogAPI.posts.domain.QPosts.posts;
 import static dev.charles.SimpleBlogAPI.users.domain.QUsers.users;
 
 
 public class CustomizedPostsRepositoryImpl extends QuerydslRepositorySupport implements CustomizedPostsRepository {
+    private static final String REPOSITORY = "posts";
+    private static final String HEADLINE_OPTIONS = "MaxWords=35, MinWords=15, MaxFragments=2, " + Headlines.SELECTORS;
     private final JPAQueryFactory queryFactory;
-    public CustomizedPostsRepositoryImpl(JPAQueryFactory queryFactory) {
+    private final TotalCountResolver totalCounts;
+    private final QueryTimer queryTimer;
+    public CustomizedPostsRepositoryImpl(JPAQueryFactory queryFactory, TotalCountResolver totalCounts, QueryTimer queryTimer) {
         super(Posts.class);
         this.queryFactory = queryFactory;
+        this.totalCounts = totalCounts;
+        this.queryTimer = queryTimer;
     }
 
 
     @Override
-    public Page<PostDto> findAllByKeyword(boolean isSearchMode, String keyword, Pageable pageable) {
+    public Page<PostDto> findAllByKeyword(boolean isSearchMode, String keyword, SearchLanguage language, Pageable pageable) {
+        return fetchPage(isSearchMode, keyword, null, language, pageable);
+    }
 
-        JPAQuery<Long> idQuery = queryFactory
-                .select(posts.id)
-                .from(posts)
-                .where(searchText(keyword))
-                .orderBy(posts.id.desc());
+    @Override
+    public Page<PostDto> findAllByKeywordAndEmail(boolean isSearchMode, String keyword, String email, SearchLanguage language, Pageable pageable) {
+        return fetchPage(isSearchMode, keyword, email, language, pageable);
+    }
 
-        JPQLQuery<Long> paginationIdQuery = querydsl().applyPagination(pageable, idQuery);
-        List<Long> ids = paginationIdQuery.fetch();
-        if(ids.isEmpty()){
-            return new PageImpl<>(new ArrayList<>(), PageRequest.of(0,10), 0);
-        }
-        JPAQuery<PostDto> query = queryFactory.select(Projections.fields(PostDto.class,
-                                        posts.title,
-                                        posts.content))
-                                .from(posts)
-                                .where(
-                                        posts.id.in(ids)
-                                )
-                                .orderBy(posts.id.desc());
-
-        List<PostDto> content = query.fetch();
-        if(isSearchMode) {
-            int fixedPageCount = 10 * pageable.getPageSize();
-            return new PageImpl<>(content, pageable, fixedPageCount);
-        }
-        Long totalCount = queryFactory
-                .select(posts.id.count())
+    @Override
+    public CursorPage<PostDto> findAllByKeywordAfter(String keyword, SearchLanguage language, Long cursor, int pageSize) {
+        List<Tuple> rows = queryTimer.record(REPOSITORY, "keyset", StringUtils.hasText(keyword), () -> queryFactory
+                .select(posts.id, posts.title, posts.content)
                 .from(posts)
-                .where(searchText(keyword))
-                .fetchOne();
-        return new PageImpl<>(content, pageable, totalCount);
+                .where(
+                        searchText(keyword, language),
+                        idBefore(cursor)
+                )
+                .orderBy(posts.id.desc())
+                .limit(pageSize + 1)
+                .fetch());
+        return toCursorPage(rows, pageSize);
     }
 
     @Override
-    public Page<PostDto> findAllByKeywordAndEmail(boolean isSearchMode, String keyword, String email, Pageable pageable) {
-        JPAQuery<Long> idQuery = queryFactory
-                .select(posts.id)
+    public CursorPage<PostDto> findAllByKeywordAndEmailAfter(String keyword, String email, SearchLanguage language, Long cursor, int pageSize) {
+        List<Tuple> rows = queryTimer.record(REPOSITORY, "keyset", StringUtils.hasText(keyword), () -> queryFactory
+                .select(posts.id, posts.title, posts.content)
                 .from(posts)
                 .join(posts.createdBy, users)
                 .where(
-                        searchText(keyword),
-                        posts.createdBy.email.eq(email)
+                        searchText(keyword, language),
+                        posts.createdBy.email.eq(email),
+                        idBefore(cursor)
                 )
-                .orderBy(posts.id.desc());
-        JPQLQuery<Long> paginationId = querydsl().applyPagination(pageable, idQuery);
-        List<Long> ids = paginationId.fetch();
+                .orderBy(posts.id.desc())
+                .limit(pageSize + 1)
+                .fetch());
+        return toCursorPage(rows, pageSize);
+    }
 
-        if(ids.isEmpty()){
-            return new PageImpl<>(new ArrayList<>(), PageRequest.of(0,10), 0);
+    /**
+     * Ranks every match by {@code ts_rank_cd} but keeps only one page of ids and scores,
+     * then builds the highlighted snippets for those ids alone, since {@code ts_headline}
+     * re-parses the whole content and would dominate the cost if it ran per candidate.
+     */
+    @Override
+    public Page<PostSearchResultDto> searchRanked(String keyword, SearchLanguage language, Pageable pageable) {
+        NumberExpression<Double> rank = searchRank(keyword, language);
+        List<Tuple> ranked = queryTimer.record(REPOSITORY, "rank", true, () -> queryFactory
+                .select(posts.id, rank)
+                .from(posts)
+                .where(searchText(keyword, language))
+                .orderBy(rank.desc(), posts.id.desc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .fetch());
+        if(ranked.isEmpty() && pageable.getOffset() == 0){
+            return new PageImpl<>(List.of(), pageable, 0);
         }
-        JPAQuery<PostDto> query = queryFactory
-                .select(Projections.fields(PostDto.class,
-                        posts.title,
-                        posts.content))
+        List<PostSearchResultDto> content = ranked.isEmpty() ? List.of() : withHeadlines(ranked, rank, keyword, language);
+
+        String filtered = filteredPosts(keyword, null, language);
+        Map<String, Object> params = filterParams(keyword, null, language);
+        long totalCount = queryTimer.record(REPOSITORY, "count", true,
+                () -> totalCounts.resolve(totalCounts.modeFor(true), pageable, countQuery(keyword, null, language, filtered, params)));
+        return new PageImpl<>(content, pageable, totalCount);
+    }
+
+    // a post deleted between the rank and headline queries has no row and is left out of the page
+    private List<PostSearchResultDto> withHeadlines(List<Tuple> ranked, NumberExpression<Double> rank, String keyword, SearchLanguage language) {
+        List<Long> ids = ranked.stream().map(row -> row.get(posts.id)).toList();
+        StringExpression snippet = searchHeadline(posts.content, keyword, language);
+        Map<Long, Tuple> rows = queryTimer.record(REPOSITORY, "headline", true, () -> queryFactory
+                .select(posts.id, posts.title, snippet)
                 .from(posts)
-                .where(
-                       posts.id.in(ids)
-                )
-                .orderBy(posts.id.desc());
+                .where(posts.id.in(ids))
+                .fetch())
+                .stream()
+                .collect(Collectors.toMap(row -> row.get(posts.id), Function.identity()));
+        return ranked.stream()
+                .filter(hit -> rows.containsKey(hit.get(posts.id)))
+                .map(hit -> {
+                    Tuple row = rows.get(hit.get(posts.id));
+                    return new PostSearchResultDto(hit.get(posts.id), row.get(posts.title), Headlines.toHtml(row.get(snippet)),
+                            Objects.requireNonNullElse(hit.get(rank), 0d));
+                })
+                .toList();
+    }
 
-        List<PostDto> content = query.fetch();
+    // fetches one extra row to learn whether another page exists without counting
+    private CursorPage<PostDto> toCursorPage(List<Tuple> rows, int pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        List<Tuple> page = hasNext ? rows.subList(0, pageSize) : rows;
+        List<PostDto> content = page.stream()
+                .map(row -> new PostDto(row.get(posts.title), row.get(posts.content)))
+                .toList();
+        String nextCursor = hasNext ? Cursors.encodeId(page.get(page.size() - 1).get(posts.id)) : null;
+        return new CursorPage<>(content, pageSize, nextCursor);
+    }
 
-        if(isSearchMode) {
-            int fixedPageCount = 10 * pageable.getPageSize();
-            return new PageImpl<>(content, pageable, fixedPageCount);
-        }
+    private BooleanExpression idBefore(Long cursor) {
+        return cursor == null ? null : posts.id.lt(cursor);
+    }
 
-        Long totalCount = queryFactory
-                .select(posts.id.count())
-                .from(posts)
-                .join(posts.createdBy, users)
-                .where(
-                        searchText(keyword),
-                        posts.createdBy.email.eq(email)
-                )
-                .fetchOne();
+    /**
+     * Fetches the page rows and, when counting exactly, the total in one round trip.
+     * The page ids come from an inlined CTE that still walks the primary key backwards,
+     * and the total is an uncorrelated scalar subquery that Postgres evaluates once.
+     * Other count modes leave the total to {@link TotalCountResolver}.
+     */
+    private Page<PostDto> fetchPage(boolean isSearchMode, String keyword, String email, SearchLanguage language, Pageable pageable) {
+        String filtered = filteredPosts(keyword, email, language);
+        Map<String, Object> params = filterParams(keyword, email, language);
+        CountMode countMode = totalCounts.modeFor(isSearchMode);
+        // tagged like the keyset phases, from the keyword rather than the caller's count mode
+        boolean search = StringUtils.hasText(keyword);
+        boolean inlineTotal = countMode == CountMode.EXACT;
+        String total = inlineTotal ? "(SELECT count(*) " + filtered + ")" : "CAST(NULL AS BIGINT)";
+        String sql = "WITH page AS (SELECT p.id " + filtered + " ORDER BY p.id DESC LIMIT :limit OFFSET :offset) "
+                + "SELECT p.title, p.content, " + total + " AS total_count "
+                + "FROM page JOIN posts p ON p.id = page.id "
+                + "ORDER BY p.id DESC";
+
+        Query query = entityManager().createNativeQuery(sql)
+                .setParameter("limit", pageable.getPageSize())
+                .setParameter("offset", pageable.getOffset());
+        params.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = queryTimer.record(REPOSITORY, inlineTotal ? "page+count" : "page", search,
+                () -> query.getResultList());
+
+        if(rows.isEmpty()){
+            return new PageImpl<>(new ArrayList<>(), PageRequest.of(0,10), 0);
+        }
+        List<PostDto> content = rows.stream()
+                .map(row -> new PostDto((String) row[0], (String) row[1]))
+                .toList();
+        long totalCount = inlineTotal
+                ? ((Number) rows.get(0)[2]).longValue()
+                : queryTimer.record(REPOSITORY, "count", search,
+                        () -> totalCounts.resolve(countMode, pageable, countQuery(keyword, email, language, filtered, params)));
         return new PageImpl<>(content, pageable, totalCount);
+    }
 
+    private CountQuery countQuery(String keyword, String email, SearchLanguage language, String filtered, Map<String, Object> params) {
+        String cacheKey = "posts:" + Objects.toString(email, "") + "|" + Objects.toString(keyword, "") + "|" + language;
+        LongSupplier exact = () -> {
+            Query query = entityManager().createNativeQuery("SELECT count(*) " + filtered);
+            params.forEach(query::setParameter);
+            return ((Number) query.getSingleResult()).longValue();
+        };
+        return new CountQuery(cacheKey, exact, "SELECT 1 " + filtered, params);
+    }
+
+    private String filteredPosts(String keyword, String email, SearchLanguage language) {
+        StringBuilder sql = new StringBuilder("FROM posts p");
+        List<String> conditions = new ArrayList<>();
+        if(email != null) {
+            sql.append(" JOIN users u ON u.id = p.created_by_id");
+            conditions.add("u.email = :email");
+        }
+        if(StringUtils.hasText(keyword)) {
+            conditions.add("p.search_config = CAST(:config AS regconfig)");
+            String match = "p.post_tsv @@ websearch_to_tsquery(CAST(:config AS regconfig), :keyword)";
+            if(language.isSubstringFallback()) {
+                match = "(" + match + " OR (p.title || ' ' || p.content) ILIKE :pattern)";
+            }
+            conditions.add(match);
+        }
+        if(!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.toString();
+    }
 
+    private Map<String, Object> filterParams(String keyword, String email, SearchLanguage language) {
+        Map<String, Object> params = new HashMap<>();
+        if(email != null) {
+            params.put("email", email);
+        }
+        if(StringUtils.hasText(keyword)) {
+            params.put("config", language.getRegconfig());
+            params.put("keyword", keyword);
+            if(language.isSubstringFallback()) {
+                params.put("pattern", LikePatterns.contains(keyword));
+            }
+        }
+        return params;
     }
 
-    private Querydsl querydsl() {
-        return Objects.requireNonNull(getQuerydsl());
+    private EntityManager entityManager() {
+        return Objects.requireNonNull(getEntityManager());
     }
 
-    private BooleanExpression searchText(String keyword) {
-        String lang = "english";
-        if(Optional.ofNullable(keyword).isEmpty()) return null;
-        return Expressions.booleanTemplate(
+    private BooleanExpression searchText(String keyword, SearchLanguage language) {
+        if(!StringUtils.hasText(keyword)) return null;
+        BooleanExpression match = Expressions.booleanTemplate(
                 "search_text({0} ,{1}, {2})",
                 posts.post_tsv,
-                Expressions.constant(lang),
+                Expressions.constant(language.getRegconfig()),
                 Expressions.constant(keyword)
         );
+        if(language.isSubstringFallback()) {
+            match = match.or(Expressions.booleanTemplate(
+                    "ngram_match({0}, {1}, {2})",
+                    posts.title,
+                    posts.content,
+                    Expressions.constant(LikePatterns.contains(keyword))
+            ));
+        }
+        return Expressions.booleanTemplate(
+                "search_config_is({0}, {1})",
+                posts.searchConfig,
+                Expressions.constant(language.getRegconfig())
+        ).and(match);
+    }
+
+    private NumberExpression<Double> searchRank(String keyword, SearchLanguage language) {
+        return Expressions.numberTemplate(Double.class,
+                "search_rank({0}, {1}, {2})",
+                posts.post_tsv,
+                Expressions.constant(language.getRegconfig()),
+                Expressions.constant(keyword)
+        );
+    }
+
+    private StringExpression searchHeadline(StringExpression text, String keyword, SearchLanguage language) {
+        return Expressions.stringTemplate(
+                "search_headline({0}, {1}, {2}, {3})",
+                Expressions.constant(language.getRegconfig()),
+                text,
+                Expressions.constant(keyword),
+                Expressions.constant(HEADLINE_OPTIONS)
+        );
     }
 
 }
@@ -1,12 +1,41 @@
 package dev.charles.SimpleBlogAPI.posts.repository;
 
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
+import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PostsRepository extends JpaRepository<Posts, Long>, CustomizedPostsRepository{
     <T> Optional<T> findById(Long id, Class<T> type);
 
+    /**
+     * Streams every post of a user, newest first, through a server-side cursor.
+     * PostgreSQL only honours the fetch size inside a transaction, so callers must hold one open
+     * and close the stream. The rows are DTOs, so nothing accumulates in the persistence context.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select new dev.charles.SimpleBlogAPI.posts.dto.PostDto(p.title, p.content) " +
+            "from Posts p where p.createdBy.email = :email order by p.id desc")
+    Stream<PostDto> streamAllByEmail(@Param("email") String email);
+
+    /**
+     * Deletes a post with one statement and lets ON DELETE CASCADE remove its comments.
+     * @return number of deleted posts
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Posts p where p.id = :id")
+    int bulkDeleteById(@Param("id") Long id);
 
 }
@@ -0,0 +1,121 @@
+package dev.charles.SimpleBlogAPI.posts.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSnapshot;
+import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of single posts keyed by id.
+ * Entries carry the {@code @Version} they were read at, and writers evict them only after their
+ * transaction commits. A reader therefore never repopulates the cache from a row that is about to be
+ * replaced, and an eviction never drops an entry that is already newer than the committed write.
+ * Hits, misses, load latency and the hit ratio are published under the {@code cache} meters with {@code cache=posts}.
+ */
+@Component
+public class PostsCache {
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final PostsRepository postsRepository;
+    private final Cache<Long, PostSnapshot> cache;
+
+    public PostsCache(PostsRepository postsRepository, MeterRegistry meterRegistry,
+                      @Value("${posts.cache.maximum-weight:33554432}") long maximumWeight,
+                      @Value("${posts.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.postsRepository = postsRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((Long id, PostSnapshot post) -> weigh(post))
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "posts");
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", "posts")
+                .description("The ratio of cache requests which were hits")
+                .register(meterRegistry);
+    }
+
+    public Optional<PostDto> find(Long id) {
+        return findSnapshot(id).map(PostSnapshot::toDto);
+    }
+
+    /**
+     * Same as {@link #find(Long)} but keeps the {@code @Version} the post was read at,
+     * so a cache hit can answer a conditional GET without touching the database.
+     */
+    public Optional<PostSnapshot> findSnapshot(Long id) {
+        return Optional.ofNullable(cache.get(id, this::load));
+    }
+
+    /**
+     * Evicts {@code id} once the current transaction commits, unless the cache already holds
+     * a version newer than {@code committedVersion}, which is read after the commit.
+     * Outside a transaction the eviction happens immediately.
+     */
+    public void evictAfterCommit(Long id, LongSupplier committedVersion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id, committedVersion.getAsLong());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id, committedVersion.getAsLong());
+            }
+        });
+    }
+
+    /**
+     * Evicts {@code id} regardless of version once the current transaction commits.
+     */
+    public void evictAfterCommit(Long id) {
+        evictAfterCommit(id, () -> Long.MAX_VALUE);
+    }
+
+    /**
+     * Drops every entry once the current transaction commits, for writes that remove posts in bulk.
+     */
+    public void invalidateAllAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidateAll();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidateAll();
+            }
+        });
+    }
+
+    private void evict(Long id, long committedVersion) {
+        cache.asMap().computeIfPresent(id, (key, cached) ->
+                cached.version() != null && cached.version() > committedVersion ? cached : null);
+    }
+
+    private PostSnapshot load(Long id) {
+        return postsRepository.findById(id, PostSnapshot.class).orElse(null);
+    }
+
+    private static int weigh(PostSnapshot post) {
+        int chars = length(post.title()) + length(post.content());
+        return ENTRY_OVERHEAD + 2 * chars;
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -2,49 +2,135 @@ package dev.charles.SimpleBlogAPI.posts.service;
 
 import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
+import dev.charles.SimpleBlogAPI.posts.domain.SearchLanguage;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSnapshot;
 import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkImporter;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
+import dev.charles.SimpleBlogAPI.utils.persistence.ConstraintViolations;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class PostsService {
     final private PostsRepository postsRepository;
     final private UsersRepository usersRepository;
+    final private TotalCountResolver totalCounts;
+    final private BulkImporter bulkImporter;
+    final private PostsCache postsCache;
 
+    /**
+     * The writer comes from the natural id cache, so the happy path is the INSERT alone.
+     * A user deleted in the meantime fails it on the foreign key and is reported as not found.
+     */
     @Transactional
     public void createPost(String email, PostDto postDto) {
         Users user = usersRepository.findByEmail(email)
                 .orElseThrow(() -> new NotFoundResourceException("Not found user by email"));
         Posts post = Posts.of(postDto);
         post.setUser(user);
-        postsRepository.save(post);
+        try {
+            postsRepository.saveAndFlush(post);
+        }
+        catch (DataIntegrityViolationException ex) {
+            if ("fk_posts_created_by_id".equals(ConstraintViolations.constraintName(ex))) {
+                throw new NotFoundResourceException("Not found user by email");
+            }
+            throw ex;
+        }
+        totalCounts.evictAfterCommit("posts");
+    }
+
+    /**
+     * Imports a JSON array or NDJSON stream of posts written by {@code email}.
+     * Each chunk commits on its own, so the method itself runs outside a transaction.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importPosts(String email, InputStream body, Consumer<BulkItemResult> report) {
+        Long userId = usersRepository.findByEmail(email)
+                .orElseThrow(() -> new NotFoundResourceException("Not found user by email"))
+                .getId();
+        try {
+            bulkImporter.importAll(body, PostDto.class, postDto -> {
+                Posts post = Posts.of(postDto);
+                post.setUser(usersRepository.getReferenceById(userId));
+                return postsRepository.save(post).getId();
+            }, report);
+        }
+        finally {
+            totalCounts.evict("posts");
+        }
     }
 
-    public Page<PostDto> getAllPostsByUser(Boolean isSearchMode, final String email, final String keyword , final Integer pageNumber){
+    public Page<PostDto> getAllPostsByUser(Boolean isSearchMode, final String email, final String keyword , final String lang, final Integer pageNumber){
         int pageSize = 10;
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
-        return postsRepository.findAllByKeywordAndEmail(isSearchMode, keyword, email, pageable);
+        return postsRepository.findAllByKeywordAndEmail(isSearchMode, keyword, email, SearchLanguage.resolve(lang, keyword), pageable);
 
     }
 
-    public Page<PostDto> getAllPosts(Boolean isSearchMode, final String keyword, final Integer pageNumber){
+    public Page<PostDto> getAllPosts(Boolean isSearchMode, final String keyword, final String lang, final Integer pageNumber){
         int pageSize = 10;
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
-        return postsRepository.findAllByKeyword(isSearchMode, keyword, pageable );
+        return postsRepository.findAllByKeyword(isSearchMode, keyword, SearchLanguage.resolve(lang, keyword), pageable );
+    }
+
+    public Page<PostSearchResultDto> searchPosts(final String keyword, final String lang, final Integer pageNumber){
+        int pageSize = 10;
+        Pageable pageable = PageRequest.of(pageNumber, pageSize);
+        return postsRepository.searchRanked(keyword, SearchLanguage.resolve(lang, keyword), pageable);
+    }
+
+    /**
+     * Hands every post of {@code email} to {@code sink} while the read-only transaction
+     * keeps the database cursor open.
+     */
+    public void exportPostsByUser(final String email, final Consumer<PostDto> sink){
+        try (Stream<PostDto> posts = postsRepository.streamAllByEmail(email)) {
+            posts.forEach(sink);
+        }
+    }
+
+    public CursorPage<PostDto> getAllPostsByUserAfter(final String email, final String keyword, final String lang, final String after){
+        int pageSize = 10;
+        return postsRepository.findAllByKeywordAndEmailAfter(keyword, email, SearchLanguage.resolve(lang, keyword), Cursors.decodeId(after), pageSize);
+    }
+
+    public CursorPage<PostDto> getAllPostsAfter(final String keyword, final String lang, final String after){
+        int pageSize = 10;
+        return postsRepository.findAllByKeywordAfter(keyword, SearchLanguage.resolve(lang, keyword), Cursors.decodeId(after), pageSize);
     }
 
     public PostDto getPostById(Long postId) {
-        return postsRepository.findById(postId, PostDto.class)
+        return postsCache.find(postId)
+                .orElseThrow(() -> new NotFoundResourceException("Post not found with id: " + postId));
+    }
+
+    /**
+     * The post together with its {@code @Version}, for callers that tag the response with it.
+     */
+    public PostSnapshot getPostSnapshot(Long postId) {
+        return postsCache.findSnapshot(postId)
                 .orElseThrow(() -> new NotFoundResourceException("Post not found with id: " + postId));
     }
 
@@ -53,11 +139,14 @@ public class PostsService {
         Posts post = postsRepository.findById(postId)
                 .orElseThrow(() -> new NotFoundResourceException("Post not found with id: " + postId));
         post.update(postDto);
+        postsCache.evictAfterCommit(postId, post::getVersion);
     }
 
     @Transactional
     public void deletePost(Long postId) {
-        postsRepository.deleteById(postId);
+        postsRepository.bulkDeleteById(postId);
+        totalCounts.evictAfterCommit("posts");
+        postsCache.evictAfterCommit(postId);
     }
 
 }
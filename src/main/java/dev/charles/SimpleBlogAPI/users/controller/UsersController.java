@@ -1,7 +1,10 @@
 package dev.charles.SimpleBlogAPI.users.controller;
 
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
 import dev.charles.SimpleBlogAPI.users.service.UsersService;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -42,9 +45,29 @@ public class UsersController {
         return new ResponseEntity<>(userDto,HttpStatus.OK);
     }
 
+    /**
+     * GET /api/users/stats
+     * 사용자의 게시글 수, 댓글 수, 마지막 활동 시각을 반환합니다.
+     * 게시글과 댓글이 작성, 삭제될 때 갱신되는 user_stats 테이블에서 읽습니다.
+     * @return 사용자 통계 (UserStatsDto)
+     */
+    @GetMapping("/stats")
+    ResponseEntity<UserStatsDto> getUserStats(
+            @RequestParam
+            @Email(
+                    regexp = "^[a-zA-Z][a-zA-Z0-9]{4,}@[a-zA-Z]+\\.[a-z]{2,}$",
+                    message = "올바른 이메일을 입력하세요."
+            )
+            @NotBlank(message = "이메일은 필수입니다.")
+            String email){
+        UserStatsDto stats = usersService.getUserStats(email);
+        return new ResponseEntity<>(stats, HttpStatus.OK);
+    }
+
     /**
      * GET /api/users/paged
      * 사용자의 목록을 페이징 처리하여 반환합니다.
+     * 검색어와 비슷한 사용자 이름 순으로 정렬되며, minSimilarity 미만의 유사도는 제외됩니다.
      * @return 페이징된 사용자 데이터 (Page<UserDto>)
      */
 
@@ -53,10 +76,14 @@ public class UsersController {
             @NotNull @RequestParam(value = "isSearchMode") Boolean isSearchMode,
             @RequestParam(value = "keyword", required = false, defaultValue = "")
             final String keyword,
+            @DecimalMin(value = "0.0", message = "최소 0 이상입니다.")
+            @DecimalMax(value = "1.0", message = "최대 1 이하입니다.")
+            @RequestParam(value = "minSimilarity", defaultValue = "0.3")
+            final Double minSimilarity,
             @Min(value = 0, message = "최소 0 이상입니다.")
             @RequestParam(value = "pageNumber", defaultValue = "0")
             final Integer pageNumber){
-        Page<UserDto> users = usersService.getUsers(isSearchMode, keyword, pageNumber);
+        Page<UserDto> users = usersService.getUsers(isSearchMode, keyword, minSimilarity, pageNumber);
         return new ResponseEntity<>(users,HttpStatus.OK);
     }
 
@@ -0,0 +1,38 @@
+package dev.charles.SimpleBlogAPI.users.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * Per-author post and comment totals. The row is written only by the triggers on
+ * {@code posts} and {@code comments}, and is missing until the author writes anything.
+ */
+@Entity
+@Immutable
+@Table(name = "user_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class UserStats {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "post_count")
+    private long postCount;
+
+    @Column(name = "comment_count")
+    private long commentCount;
+
+    @Column(name = "last_active_at")
+    private Instant lastActiveAt;
+}
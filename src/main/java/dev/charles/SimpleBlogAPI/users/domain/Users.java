@@ -5,29 +5,42 @@ import dev.charles.SimpleBlogAPI.posts.domain.Posts;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Users.CACHE_REGION)
+@NaturalIdCache(region = Users.NATURAL_ID_CACHE_REGION)
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString
 public class Users extends BaseEntity{
+    public static final String CACHE_REGION = "users";
+    public static final String NATURAL_ID_CACHE_REGION = "users-by-email";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
     private String username;
 
+    // mutable, so Hibernate re-keys the natural id cache when update() changes it
+    @NaturalId(mutable = true)
     @Column(nullable = false)
     private String email;
 
-    @OneToMany(mappedBy = "createdBy" , cascade = CascadeType.ALL, orphanRemoval = true)
+    // removed by ON DELETE CASCADE, so deleting a user never loads them
+    @OneToMany(mappedBy = "createdBy")
     private List<Posts> posts = new ArrayList<>();
 
-    @OneToMany(mappedBy = "createdBy", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OneToMany(mappedBy = "createdBy")
     private List<Comments> comments = new ArrayList<>();
 
 
@@ -0,0 +1,11 @@
+package dev.charles.SimpleBlogAPI.users.dto;
+
+/**
+ * An author as cached by {@code AuthorCache}, together with the {@code @Version} it was read at.
+ */
+public record AuthorSnapshot(Long version, String email, String username) {
+
+    public UserDto toDto() {
+        return new UserDto(email, username);
+    }
+}
@@ -0,0 +1,31 @@
+package dev.charles.SimpleBlogAPI.users.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.Instant;
+
+@Getter
+@NoArgsConstructor
+@ToString
+public class UserStatsDto {
+    private String email;
+    private String username;
+    private long postCount;
+    private long commentCount;
+    // null until the user writes a post or a comment
+    private Instant lastActiveAt;
+
+    @QueryProjection
+    @Builder
+    public UserStatsDto(String email, String username, long postCount, long commentCount, Instant lastActiveAt) {
+        this.email = email;
+        this.username = username;
+        this.postCount = postCount;
+        this.commentCount = commentCount;
+        this.lastActiveAt = lastActiveAt;
+    }
+}
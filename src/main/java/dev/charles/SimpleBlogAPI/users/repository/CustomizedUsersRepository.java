@@ -1,10 +1,50 @@
 package dev.charles.SimpleBlogAPI.users.repository;
 
+import dev.charles.SimpleBlogAPI.users.domain.Users;
+import dev.charles.SimpleBlogAPI.users.dto.AuthorSnapshot;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
 
 public interface CustomizedUsersRepository {
-    Page<UserDto> findAllByKeyword(Boolean isSearchMode, String keyword, Pageable pageable);
+    /**
+     * pg_trgm's own default for {@code pg_trgm.similarity_threshold}.
+     */
+    double DEFAULT_MIN_SIMILARITY = 0.3;
+
+    default Page<UserDto> findAllByKeyword(Boolean isSearchMode, String keyword, Pageable pageable) {
+        return findAllByKeyword(isSearchMode, keyword, DEFAULT_MIN_SIMILARITY, pageable);
+    }
+
+    /**
+     * Finds users whose username contains {@code keyword} or is at least {@code minSimilarity}
+     * trigram-similar to it, most similar first. The threshold only applies for the current
+     * transaction, so callers should run inside one.
+     */
+    Page<UserDto> findAllByKeyword(Boolean isSearchMode, String keyword, double minSimilarity, Pageable pageable);
+
+    /**
+     * Loads a user by its email natural id, served from the second-level cache after the first hit.
+     * Needs a session, so it opens a read-only transaction when the caller has none.
+     */
+    @Transactional(readOnly = true)
+    Optional<Users> findByEmail(String email);
+
+    /**
+     * Reads the user's post and comment totals from {@code user_stats} in one query.
+     * A user who has not written anything yet gets zero counts.
+     */
+    Optional<UserStatsDto> findStatsByEmail(String email);
+
+    /**
+     * Loads the authors of {@code ids} with their {@code @Version} in one {@code IN} query, keyed by user id.
+     */
+    Map<Long, AuthorSnapshot> findAuthorsByIds(Collection<? extends Long> ids);
 
 }
@@ -1,68 +1,177 @@
 package dev.charles.SimpleBlogAPI.users.repository;
 
-import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
-import dev.charles.SimpleBlogAPI.users.dto.QUserDto;
+import dev.charles.SimpleBlogAPI.users.dto.AuthorSnapshot;
+import dev.charles.SimpleBlogAPI.users.dto.QUserStatsDto;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
+import dev.charles.SimpleBlogAPI.utils.metrics.QueryTimer;
+import dev.charles.SimpleBlogAPI.utils.pagination.CountQuery;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
+import dev.charles.SimpleBlogAPI.utils.search.LikePatterns;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+import static dev.charles.SimpleBlogAPI.users.domain.QUserStats.userStats;
 import static dev.charles.SimpleBlogAPI.users.domain.QUsers.users;
 
 public class CustomizedUsersRepositoryImpl extends QuerydslRepositorySupport implements CustomizedUsersRepository{
+    private static final String REPOSITORY = "users";
     private final JPAQueryFactory queryFactory;
+    private final TotalCountResolver totalCounts;
+    private final QueryTimer queryTimer;
 
-    public CustomizedUsersRepositoryImpl(JPAQueryFactory queryFactory) {
+    public CustomizedUsersRepositoryImpl(JPAQueryFactory queryFactory, TotalCountResolver totalCounts, QueryTimer queryTimer) {
         super(Users.class);
         this.queryFactory = queryFactory;
+        this.totalCounts = totalCounts;
+        this.queryTimer = queryTimer;
     }
 
+    /**
+     * Ids are ranked by trigram distance first and fetched a page at a time, then the rows are
+     * loaded by id and put back into that order.
+     */
     @Override
-    public Page<UserDto> findAllByKeyword(Boolean isSearchMode, String keyword, Pageable pageable) {
+    public Page<UserDto> findAllByKeyword(Boolean isSearchMode, String keyword, double minSimilarity, Pageable pageable) {
+        Assert.isTrue(minSimilarity >= 0 && minSimilarity <= 1, "minSimilarity must be between 0 and 1");
+        boolean hasKeyword = StringUtils.hasText(keyword);
+        if(hasKeyword) {
+            applySimilarityThreshold(minSimilarity);
+        }
         JPAQuery<Long> idQuery = queryFactory
                 .select(users.id)
                 .from(users)
-                .where(users.username.likeIgnoreCase("%"+keyword + "%"))
-                .orderBy(users.id.desc());
-        JPQLQuery<Long> paginationId = querydsl().applyPagination(pageable, idQuery);
-        List<Long> ids = paginationId.fetch();
+                .where(trigramMatch(keyword))
+                .orderBy(relevance(keyword))
+                .orderBy(users.id.desc())
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize());
+        List<Long> ids = queryTimer.record(REPOSITORY, "ids", isSearchMode, idQuery::fetch);
         if(ids.isEmpty()){
             return new PageImpl<>(new ArrayList<>(), PageRequest.of(0,10), 0);
         }
 
-        JPAQuery<UserDto> query =queryFactory
-                .select(new QUserDto(users.email, users.username))
+        List<UserDto> rows = queryTimer.record(REPOSITORY, "content", isSearchMode, () -> queryFactory
+                .select(users.id, users.email, users.username)
                 .from(users)
-                .where(
-                        users.id.in(ids)
-                )
-                .orderBy(users.id.desc());
-        List<UserDto> contents = query.fetch();
-
-        if(isSearchMode) {
-            int fixedPageCount = 10 * pageable.getPageSize();
-            return new PageImpl<>(contents, pageable, fixedPageCount);
+                .where(users.id.in(ids))
+                .fetch()
+                .stream()
+                .sorted(Comparator.comparingInt(row -> ids.indexOf(row.get(users.id))))
+                .map(row -> new UserDto(row.get(users.email), row.get(users.username)))
+                .toList());
+
+        long totalCount = queryTimer.record(REPOSITORY, "count", isSearchMode,
+                () -> totalCounts.resolve(totalCounts.modeFor(isSearchMode), pageable, countQuery(keyword, minSimilarity)));
+        return new PageImpl<>(rows, pageable, totalCount);
+    }
+
+    @Override
+    public Optional<Users> findByEmail(String email) {
+        return entityManager().unwrap(Session.class)
+                .bySimpleNaturalId(Users.class)
+                .loadOptional(email);
+    }
+
+    @Override
+    public Optional<UserStatsDto> findStatsByEmail(String email) {
+        return Optional.ofNullable(queryTimer.record(REPOSITORY, "stats", false, () -> queryFactory
+                .select(new QUserStatsDto(
+                        users.email,
+                        users.username,
+                        userStats.postCount.coalesce(0L),
+                        userStats.commentCount.coalesce(0L),
+                        userStats.lastActiveAt))
+                .from(users)
+                .leftJoin(userStats).on(userStats.userId.eq(users.id))
+                .where(users.email.eq(email))
+                .fetchOne()));
+    }
+
+    @Override
+    public Map<Long, AuthorSnapshot> findAuthorsByIds(Collection<? extends Long> ids) {
+        if(ids.isEmpty()){
+            return Map.of();
         }
-        Long totalCount = queryFactory
-                .select(users.id.count())
+        return queryTimer.record(REPOSITORY, "authors", false, () -> queryFactory
+                .select(users.id, users.version, users.email, users.username)
                 .from(users)
-                .where(users.username.likeIgnoreCase("%"+keyword + "%"))
-                .fetchOne();
-        return new PageImpl<>(contents, pageable, totalCount);
+                .where(users.id.in(ids))
+                .fetch()
+                .stream()
+                .collect(Collectors.toMap(row -> row.get(users.id),
+                        row -> new AuthorSnapshot(row.get(users.version), row.get(users.email), row.get(users.username)))));
+    }
+
+    private CountQuery countQuery(String keyword, double minSimilarity) {
+        String estimateSql = "SELECT 1 FROM users u";
+        Map<String, Object> params = new HashMap<>();
+        if(StringUtils.hasText(keyword)) {
+            estimateSql += " WHERE (u.username ILIKE :pattern OR u.username % :keyword)";
+            params.put("pattern", LikePatterns.contains(keyword));
+            params.put("keyword", keyword);
+        }
+        return new CountQuery(
+                "users:" + Objects.toString(keyword, "") + "|" + minSimilarity,
+                () -> queryFactory
+                        .select(users.id.count())
+                        .from(users)
+                        .where(trigramMatch(keyword))
+                        .fetchOne(),
+                estimateSql,
+                params);
+    }
+
+    // the % operator reads its cut-off from this setting, and is_local keeps it to the current transaction
+    private void applySimilarityThreshold(double minSimilarity) {
+        entityManager()
+                .createNativeQuery("SELECT set_config('pg_trgm.similarity_threshold', :threshold, true)")
+                .setParameter("threshold", Double.toString(minSimilarity))
+                .getSingleResult();
+    }
+
+    private BooleanExpression trigramMatch(String keyword) {
+        if(!StringUtils.hasText(keyword)) return null;
+        return Expressions.booleanTemplate(
+                "trgm_match({0}, {1}, {2})",
+                users.username,
+                Expressions.constant(LikePatterns.contains(keyword)),
+                Expressions.constant(keyword)
+        );
+    }
+
+    private OrderSpecifier<?>[] relevance(String keyword) {
+        if(!StringUtils.hasText(keyword)) return new OrderSpecifier<?>[0];
+        return new OrderSpecifier<?>[]{ new OrderSpecifier<>(Order.ASC, Expressions.numberTemplate(Double.class,
+                "trgm_distance({0}, {1})", users.username, Expressions.constant(keyword))) };
     }
 
-    private Querydsl querydsl() {
-        return Objects.requireNonNull(getQuerydsl());
+    private EntityManager entityManager() {
+        return Objects.requireNonNull(getEntityManager());
     }
 
 }
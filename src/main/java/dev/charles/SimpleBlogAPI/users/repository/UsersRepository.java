@@ -2,10 +2,23 @@ package dev.charles.SimpleBlogAPI.users.repository;
 
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.Optional;
 
 public interface UsersRepository extends JpaRepository<Users, Long>, CustomizedUsersRepository {
-    Optional<Users> findByEmail(String email);
     <T> Optional<T> findByEmail(String email, Class<T> type);
 
+    /**
+     * Deletes a user with one statement and lets ON DELETE CASCADE remove its posts and comments.
+     * Hibernate drops the Users cache regions after a bulk statement, and the persistence context
+     * is flushed before and cleared after so that it holds no deleted rows.
+     * @return number of deleted users
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Users u where u.email = :email")
+    int bulkDeleteByEmail(@Param("email") String email);
+
 }
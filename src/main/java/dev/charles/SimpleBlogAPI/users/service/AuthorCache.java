@@ -0,0 +1,118 @@
+package dev.charles.SimpleBlogAPI.users.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.charles.SimpleBlogAPI.users.dto.AuthorSnapshot;
+import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of author projections keyed by user id, for listings that carry only
+ * {@code created_by_id}. The same few authors fill most comment pages, so a page usually
+ * resolves every author from memory, and the misses of a page are loaded with one {@code IN} query.
+ * Entries carry the {@code @Version} they were read at, and every eviction leaves the committed
+ * version behind for as long as an entry lives, so a read that started before the commit cannot
+ * put the replaced row back once the eviction has run.
+ * Hits and misses are published under the {@code cache} meters with {@code cache=authors}.
+ */
+@Component
+public class AuthorCache {
+    private final UsersRepository usersRepository;
+    private final Cache<Long, AuthorSnapshot> cache;
+    // user id -> oldest version that may be cached again
+    private final Cache<Long, Long> evicted;
+
+    public AuthorCache(UsersRepository usersRepository, MeterRegistry meterRegistry,
+                       @Value("${authors.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${authors.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.usersRepository = usersRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.evicted = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "authors");
+    }
+
+    /**
+     * Authors of {@code ids}. Ids of users that no longer exist are left out of the map.
+     */
+    public Map<Long, UserDto> getAll(Collection<Long> ids) {
+        Map<Long, AuthorSnapshot> present = cache.getAllPresent(ids);
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(present.keySet());
+        Map<Long, UserDto> authors = new HashMap<>();
+        present.forEach((id, author) -> authors.put(id, author.toDto()));
+        if (missing.isEmpty()) {
+            return authors;
+        }
+        usersRepository.findAuthorsByIds(missing).forEach((id, author) -> {
+            putUnlessEvicted(id, author);
+            authors.put(id, author.toDto());
+        });
+        return authors;
+    }
+
+    /**
+     * Evicts {@code id} once the current transaction commits, and from then on refuses entries
+     * read at a version older than {@code committedVersion}, which is read after the commit.
+     * Outside a transaction the eviction happens immediately.
+     */
+    public void evictAfterCommit(Long id, LongSupplier committedVersion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id, committedVersion.getAsLong());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id, committedVersion.getAsLong());
+            }
+        });
+    }
+
+    /**
+     * Evicts {@code id} regardless of version once the current transaction commits, for deleted users.
+     */
+    public void evictAfterCommit(Long id) {
+        evictAfterCommit(id, () -> Long.MAX_VALUE);
+    }
+
+    // the committed version is recorded before the entry is dropped, and both run under the entry's lock
+    private void evict(Long id, long committedVersion) {
+        evicted.asMap().merge(id, committedVersion, Math::max);
+        cache.asMap().computeIfPresent(id, (key, cached) -> version(cached) >= committedVersion ? cached : null);
+    }
+
+    private void putUnlessEvicted(Long id, AuthorSnapshot loaded) {
+        cache.asMap().compute(id, (key, cached) -> {
+            Long oldest = evicted.getIfPresent(key);
+            if (oldest != null && version(loaded) < oldest) {
+                return cached;
+            }
+            return cached != null && version(cached) >= version(loaded) ? cached : loaded;
+        });
+    }
+
+    private static long version(AuthorSnapshot author) {
+        return author.version() == null ? -1 : author.version();
+    }
+}
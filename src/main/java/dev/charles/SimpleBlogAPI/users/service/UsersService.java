@@ -2,9 +2,12 @@ package dev.charles.SimpleBlogAPI.users.service;
 
 import dev.charles.SimpleBlogAPI.errors.exception.DuplicateResourceException;
 import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
+import dev.charles.SimpleBlogAPI.posts.service.PostsCache;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -16,6 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional(readOnly = true)
 public class UsersService {
     final private UsersRepository usersRepository;
+    final private TotalCountResolver totalCounts;
+    final private PostsCache postsCache;
+    final private AuthorCache authorCache;
 
     public UserDto getUserByEmail (String email){
         return usersRepository.findByEmail(email, UserDto.class).orElseThrow(
@@ -23,10 +29,16 @@ public class UsersService {
         );
     }
 
-    public Page<UserDto> getUsers(Boolean isSearchMode, final String keyword, final Integer pageNumber){
+    public UserStatsDto getUserStats(String email){
+        return usersRepository.findStatsByEmail(email).orElseThrow(
+                () -> new NotFoundResourceException("Not found user by email")
+        );
+    }
+
+    public Page<UserDto> getUsers(Boolean isSearchMode, final String keyword, final double minSimilarity, final Integer pageNumber){
         int pageSize = 10;
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
-        return usersRepository.findAllByKeyword(isSearchMode, keyword, pageable);
+        return usersRepository.findAllByKeyword(isSearchMode, keyword, minSimilarity, pageable);
 
     }
 
@@ -36,13 +48,22 @@ public class UsersService {
         isDuplicated(userDto.getEmail());
         Users user = Users.of(userDto);
         usersRepository.save(user);
+        totalCounts.evictAfterCommit("users");
     }
 
     @Transactional
     public void delete(final String email){
+        // resolved through the natural id cache, only to evict the author entry below
         Users user = usersRepository.findByEmail(email)
                 .orElseThrow(() -> new NotFoundResourceException("Not found user by email"));
-        usersRepository.delete(user);
+        if(usersRepository.bulkDeleteByEmail(email) == 0){
+            throw new NotFoundResourceException("Not found user by email");
+        }
+        authorCache.evictAfterCommit(user.getId());
+        totalCounts.evictAfterCommit("users");
+        totalCounts.evictAfterCommit("posts");
+        // the user's posts go with it through ON DELETE CASCADE
+        postsCache.invalidateAllAfterCommit();
     }
 
     @Transactional
@@ -51,6 +72,7 @@ public class UsersService {
                 .orElseThrow(() -> new NotFoundResourceException("Not found user by email"));
         isDuplicated(userDto.getEmail());
         user.update(userDto);
+        authorCache.evictAfterCommit(user.getId(), user::getVersion);
     }
 
     private void isDuplicated(String email){
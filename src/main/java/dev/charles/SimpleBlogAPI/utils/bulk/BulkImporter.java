@@ -0,0 +1,182 @@
+package dev.charles.SimpleBlogAPI.utils.bulk;
+
+import com.fasterxml.jackson.core.exc.StreamReadException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.charles.SimpleBlogAPI.errors.exception.RestApiException;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Streams a JSON array or NDJSON body item by item and persists it in chunked transactions.
+ * Only one chunk of items is held in memory at a time, and the persistence context is flushed
+ * and cleared every {@code flushInterval} items so that it never grows with the payload.
+ * When a chunk fails as a whole, its items are retried one transaction each so that a single
+ * bad row is reported without discarding its neighbours.
+ */
+@Component
+@Slf4j
+public class BulkImporter {
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int flushInterval;
+
+    public BulkImporter(ObjectMapper objectMapper, Validator validator, EntityManager entityManager,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${bulk.import.chunk-size:500}") int chunkSize,
+                        @Value("${bulk.import.flush-interval:50}") int flushInterval) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.flushInterval = flushInterval;
+    }
+
+    /**
+     * Persists every item of {@code body} through {@code writer} and reports one result per item.
+     * A malformed document stops the import after reporting the position where parsing failed;
+     * items of earlier chunks stay committed. When reading the body or writing the report fails,
+     * the items of the unfinished chunk are not written.
+     */
+    public <T> void importAll(InputStream body, Class<T> type, ItemWriter<T> writer, Consumer<BulkItemResult> report) {
+        List<IndexedItem<T>> chunk = new ArrayList<>(chunkSize);
+        long index = 0;
+        try (MappingIterator<T> items = objectMapper.readerFor(type).readValues(body)) {
+            while (items.hasNextValue()) {
+                long current = index++;
+                T item;
+                try {
+                    item = items.nextValue();
+                }
+                catch (DatabindException ex) {
+                    report.accept(BulkItemResult.invalid(current, ex.getOriginalMessage()));
+                    continue;
+                }
+                String violations = validate(item);
+                if (violations != null) {
+                    report.accept(BulkItemResult.invalid(current, violations));
+                    continue;
+                }
+                chunk.add(new IndexedItem<>(current, item));
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, writer, report);
+                    chunk.clear();
+                }
+            }
+            writeRemaining(chunk, writer, report);
+        }
+        catch (StreamReadException ex) {
+            writeRemaining(chunk, writer, report);
+            report.accept(BulkItemResult.invalid(index, "Malformed JSON: " + ex.getOriginalMessage()));
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // only on the paths that end the import normally, so a failed request commits nothing more
+    private <T> void writeRemaining(List<IndexedItem<T>> chunk, ItemWriter<T> writer, Consumer<BulkItemResult> report) {
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, writer, report);
+            chunk.clear();
+        }
+    }
+
+    private <T> String validate(T item) {
+        if (item == null) {
+            return "Item must not be null";
+        }
+        Set<ConstraintViolation<T>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private <T> void writeChunk(List<IndexedItem<T>> chunk, ItemWriter<T> writer, Consumer<BulkItemResult> report) {
+        List<BulkItemResult> results;
+        try {
+            results = transactionTemplate.execute(status -> {
+                List<BulkItemResult> created = new ArrayList<>(chunk.size());
+                for (IndexedItem<T> item : chunk) {
+                    created.add(BulkItemResult.created(item.index(), writer.write(item.value())));
+                    if (created.size() % flushInterval == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return created;
+            });
+        }
+        catch (RuntimeException ex) {
+            log.debug("Bulk chunk of {} items failed, retrying item by item", chunk.size(), ex);
+            results = chunk.stream().map(item -> writeOne(item, writer)).toList();
+        }
+        results.forEach(report);
+    }
+
+    private <T> BulkItemResult writeOne(IndexedItem<T> item, ItemWriter<T> writer) {
+        try {
+            Long id = transactionTemplate.execute(status -> {
+                Long created = writer.write(item.value());
+                entityManager.flush();
+                entityManager.clear();
+                return created;
+            });
+            return BulkItemResult.created(item.index(), id);
+        }
+        catch (RuntimeException ex) {
+            return BulkItemResult.failed(item.index(), failureMessage(ex));
+        }
+    }
+
+    private static String failureMessage(RuntimeException ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return "Violates constraint " + violation.getConstraintName();
+            }
+            if (cause instanceof RestApiException || cause instanceof IllegalArgumentException) {
+                return cause.getMessage();
+            }
+        }
+        log.warn("Bulk item could not be persisted", ex);
+        return "Could not be persisted";
+    }
+
+    /**
+     * Persists a single validated item inside the current chunk transaction and returns its id.
+     */
+    @FunctionalInterface
+    public interface ItemWriter<T> {
+        Long write(T item);
+    }
+
+    private record IndexedItem<T>(long index, T value) {
+    }
+}
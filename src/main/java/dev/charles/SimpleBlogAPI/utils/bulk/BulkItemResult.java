@@ -0,0 +1,29 @@
+package dev.charles.SimpleBlogAPI.utils.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of a single item of a bulk import, written as one NDJSON line of the response.
+ * {@code index} is the zero-based position of the item in the request body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemResult(long index, Status status, Long id, String error) {
+
+    public enum Status {
+        CREATED,
+        INVALID,
+        FAILED
+    }
+
+    public static BulkItemResult created(long index, Long id) {
+        return new BulkItemResult(index, Status.CREATED, id, null);
+    }
+
+    public static BulkItemResult invalid(long index, String error) {
+        return new BulkItemResult(index, Status.INVALID, null, error);
+    }
+
+    public static BulkItemResult failed(long index, String error) {
+        return new BulkItemResult(index, Status.FAILED, null, error);
+    }
+}
@@ -0,0 +1,35 @@
+package dev.charles.SimpleBlogAPI.utils.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes each accepted value as one NDJSON line as soon as it arrives, so a response body
+ * streams alongside the work that produces it instead of being collected first.
+ * Used for bulk import reports and exports.
+ */
+public class NdjsonWriter<T> implements Consumer<T> {
+    private final ObjectWriter writer;
+    private final OutputStream out;
+
+    public NdjsonWriter(ObjectMapper objectMapper, Class<T> type, OutputStream out) {
+        this.writer = objectMapper.writerFor(type);
+        this.out = out;
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            out.write(writer.writeValueAsBytes(value));
+            out.write('\n');
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package dev.charles.SimpleBlogAPI.utils.http;
+
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import org.springframework.data.domain.Page;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Strong entity tags for conditional GETs.
+ * A single entity is tagged by its id and {@code @Version}, so the tag is known without
+ * serializing the body. A listing is tagged by a hash of its paging metadata and of the fields
+ * each item contributes to the response, so any change to a visible row changes the tag.
+ */
+public final class ETags {
+    private static final int HASH_BYTES = 16;
+
+    private ETags() {
+    }
+
+    public static String ofVersion(String resource, Object id, Long version) {
+        return quote(resource + "-" + id + "-v" + (version == null ? 0 : version));
+    }
+
+    public static <T> String ofPage(Page<T> page, Function<T, List<?>> fingerprint) {
+        PageDigest digest = new PageDigest();
+        digest.update(page.getNumber(), page.getSize(), page.getTotalElements());
+        page.getContent().forEach(item -> digest.update(fingerprint.apply(item).toArray()));
+        return digest.tag();
+    }
+
+    public static <T> String ofPage(CursorPage<T> page, Function<T, List<?>> fingerprint) {
+        PageDigest digest = new PageDigest();
+        digest.update(page.getSize(), page.getNextCursor());
+        page.getContent().forEach(item -> digest.update(fingerprint.apply(item).toArray()));
+        return digest.tag();
+    }
+
+    private static String quote(String tag) {
+        return "\"" + tag + "\"";
+    }
+
+    private static final class PageDigest {
+        private final MessageDigest digest;
+
+        private PageDigest() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            }
+            catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+        }
+
+        // every value is length-prefixed, so ("ab", "c") and ("a", "bc") hash differently
+        private void update(Object... values) {
+            Arrays.stream(values).forEach(value -> {
+                byte[] bytes = Objects.toString(value, "\u0000").getBytes(StandardCharsets.UTF_8);
+                digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+                digest.update(bytes);
+            });
+        }
+
+        private String tag() {
+            return quote(HexFormat.of().formatHex(Arrays.copyOf(digest.digest(), HASH_BYTES)));
+        }
+    }
+}
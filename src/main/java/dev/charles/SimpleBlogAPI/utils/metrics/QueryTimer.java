@@ -0,0 +1,42 @@
+package dev.charles.SimpleBlogAPI.utils.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Times the individual query phases of the custom repositories as {@value #METRIC},
+ * tagged with the repository, the phase, whether it served a keyword search and the HTTP endpoint.
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryTimer {
+    public static final String METRIC = "repository.query";
+
+    private final MeterRegistry meterRegistry;
+
+    public <T> T record(String repository, String phase, boolean searchMode, Supplier<T> query) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return query.get();
+        }
+        catch (RuntimeException ex) {
+            outcome = "error";
+            throw ex;
+        }
+        finally {
+            sample.stop(Timer.builder(METRIC)
+                    .description("Latency of a custom repository query phase")
+                    .tag("repository", repository)
+                    .tag("phase", phase)
+                    .tag("search", String.valueOf(searchMode))
+                    .tag("endpoint", RequestTags.endpoint())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package dev.charles.SimpleBlogAPI.utils.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Tag values describing the HTTP request the current thread is serving.
+ * The endpoint is the matched handler pattern once dispatching has started and the raw request
+ * path before that, e.g. while the bearer token is introspected. The cardinality of the path is
+ * capped in {@code MetricsConfig}. Work without a bound request, such as scheduled jobs or
+ * streaming response bodies, is tagged {@value #NONE}.
+ */
+public final class RequestTags {
+    public static final String NONE = "none";
+
+    private RequestTags() {
+    }
+
+    public static String endpoint() {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return NONE;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : request.getRequestURI());
+    }
+
+    /**
+     * The {@code isSearchMode} request parameter as {@code true}/{@code false}, or {@value #NONE} without one.
+     */
+    public static String searchMode() {
+        HttpServletRequest request = currentRequest();
+        String isSearchMode = request == null ? null : request.getParameter("isSearchMode");
+        return isSearchMode == null ? NONE : String.valueOf(Boolean.parseBoolean(isSearchMode));
+    }
+
+    private static HttpServletRequest currentRequest() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return attributes.getRequest();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,15 @@
+package dev.charles.SimpleBlogAPI.utils.pagination;
+
+/**
+ * How a paged listing computes {@code totalElements}.
+ */
+public enum CountMode {
+    /** Runs an exact {@code count(*)} on every request. */
+    EXACT,
+    /** Uses the planner's row estimate from {@code EXPLAIN}, which reads {@code pg_class.reltuples}. */
+    ESTIMATED,
+    /** Runs the exact count once per key and reuses it for a short TTL or until the next write. */
+    CACHED,
+    /** Reports a fixed number of pages without touching the database. */
+    FIXED,
+}
@@ -0,0 +1,14 @@
+package dev.charles.SimpleBlogAPI.utils.pagination;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Describes how to count one listing for every {@link CountMode}.
+ * @param cacheKey key under {@code namespace:} used by {@link CountMode#CACHED}
+ * @param exact runs the exact count
+ * @param estimateSql native {@code SELECT} matching the same rows, used by {@link CountMode#ESTIMATED}
+ * @param params named parameters of {@code estimateSql}
+ */
+public record CountQuery(String cacheKey, LongSupplier exact, String estimateSql, Map<String, ?> params) {
+}
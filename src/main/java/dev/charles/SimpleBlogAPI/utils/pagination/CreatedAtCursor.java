@@ -0,0 +1,11 @@
+package dev.charles.SimpleBlogAPI.utils.pagination;
+
+import java.time.Instant;
+
+/**
+ * Keyset position of a listing ordered by {@code (created_at DESC, id DESC)}:
+ * the creation time and id of the last row of the previous page.
+ * The id breaks ties between rows created in the same microsecond.
+ */
+public record CreatedAtCursor(Instant createdAt, Long id) {
+}
@@ -0,0 +1,23 @@
+package dev.charles.SimpleBlogAPI.utils.pagination;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of a keyset (seek) listing.
+ * {@code nextCursor} is an opaque token to pass back as {@code after} for the following page,
+ * or {@code null} when this is the last page.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CursorPage<T> {
+    private final List<T> content;
+    private final int size;
+    private final String nextCursor;
+
+    public boolean isHasNext() {
+        return nextCursor != null;
+    }
+}
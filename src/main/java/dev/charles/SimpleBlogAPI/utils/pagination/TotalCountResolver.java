@@ -0,0 +1,103 @@
+package dev.charles.SimpleBlogAPI.utils.pagination;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Resolves {@code totalElements} of paged listings according to the configured {@link CountMode}.
+ * Listings and keyword searches are configured separately through
+ * {@code pagination.count.list-mode} and {@code pagination.count.search-mode}.
+ */
+@Component
+@Slf4j
+public class TotalCountResolver {
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final CountMode listMode;
+    private final CountMode searchMode;
+    private final int fixedPages;
+    private final Cache<String, Long> cachedCounts;
+
+    public TotalCountResolver(NamedParameterJdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                              @Value("${pagination.count.list-mode:EXACT}") CountMode listMode,
+                              @Value("${pagination.count.search-mode:FIXED}") CountMode searchMode,
+                              @Value("${pagination.count.fixed-pages:10}") int fixedPages,
+                              @Value("${pagination.count.cache-ttl:10s}") Duration cacheTtl,
+                              @Value("${pagination.count.cache-size:10000}") long cacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.listMode = listMode;
+        this.searchMode = searchMode;
+        this.fixedPages = fixedPages;
+        this.cachedCounts = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    public CountMode modeFor(boolean isSearchMode) {
+        return isSearchMode ? searchMode : listMode;
+    }
+
+    public long resolve(CountMode mode, Pageable pageable, CountQuery query) {
+        return switch (mode) {
+            case EXACT -> query.exact().getAsLong();
+            case FIXED -> (long) fixedPages * pageable.getPageSize();
+            case CACHED -> cachedCounts.get(query.cacheKey(), key -> query.exact().getAsLong());
+            case ESTIMATED -> estimate(query);
+        };
+    }
+
+    /**
+     * Drops every cached count of a namespace, e.g. {@code "posts"} after a post is created or deleted.
+     */
+    public void evict(String namespace) {
+        String prefix = namespace + ":";
+        cachedCounts.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Evicts {@code namespace} once the current transaction commits, so a concurrent reader
+     * cannot re-cache a count from the snapshot before the write. Outside a transaction
+     * the eviction happens immediately.
+     */
+    public void evictAfterCommit(String namespace) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(namespace);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(namespace);
+            }
+        });
+    }
+
+    private long estimate(CountQuery query) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + query.estimateSql(),
+                query.params(), String.class);
+        try {
+            JsonNode planRows = objectMapper.readTree(plan).path(0).path("Plan").path("Plan Rows");
+            if (planRows.isNumber()) {
+                return planRows.asLong();
+            }
+        }
+        catch (JsonProcessingException ex) {
+            log.warn("Could not read the row estimate, falling back to an exact count", ex);
+        }
+        return query.exact().getAsLong();
+    }
+}
@@ -0,0 +1,21 @@
+package dev.charles.SimpleBlogAPI.utils.persistence;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+public final class ConstraintViolations {
+    private ConstraintViolations() {
+    }
+
+    /**
+     * Name of the database constraint that {@code ex} was caused by, such as a foreign key,
+     * or {@code null} when it was not a constraint violation.
+     */
+    public static String constraintName(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation.getConstraintName();
+            }
+        }
+        return null;
+    }
+}
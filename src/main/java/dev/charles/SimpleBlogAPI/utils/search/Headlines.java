@@ -0,0 +1,30 @@
+package dev.charles.SimpleBlogAPI.utils.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+public final class Headlines {
+    private static final String START_SEL = "\uE000";
+    private static final String STOP_SEL = "\uE001";
+
+    /**
+     * {@code ts_headline} options that mark the matched terms with private-use characters
+     * instead of markup, so the fragments can be escaped before the markup is added.
+     */
+    public static final String SELECTORS = "StartSel=" + START_SEL + ", StopSel=" + STOP_SEL;
+
+    private Headlines() {
+    }
+
+    /**
+     * Turns a headline built with {@link #SELECTORS} into HTML: the content is escaped
+     * and only the matched terms are wrapped in {@code <b>} tags.
+     */
+    public static String toHtml(String headline) {
+        if (headline == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(headline)
+                .replace(START_SEL, "<b>")
+                .replace(STOP_SEL, "</b>");
+    }
+}
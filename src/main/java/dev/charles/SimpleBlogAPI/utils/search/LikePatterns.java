@@ -0,0 +1,18 @@
+package dev.charles.SimpleBlogAPI.utils.search;
+
+public final class LikePatterns {
+    private LikePatterns() {
+    }
+
+    /**
+     * Builds a {@code LIKE}/{@code ILIKE} pattern matching {@code keyword} anywhere, with its own
+     * wildcards escaped by Postgres' default escape character.
+     */
+    public static String contains(String keyword) {
+        String escaped = keyword
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
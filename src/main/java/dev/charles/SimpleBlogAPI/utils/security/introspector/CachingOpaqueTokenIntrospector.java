@@ -0,0 +1,150 @@
+package dev.charles.SimpleBlogAPI.utils.security.introspector;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Decorates an {@link OpaqueTokenIntrospector} with a bounded principal cache so that
+ * repeated requests with the same bearer token skip the remote introspection round trip.
+ * Entries are keyed by the SHA-256 hash of the token and expire at the token's own
+ * {@code exp} claim or after {@code maxAge}, whichever comes first.
+ * Concurrent misses for the same token are coalesced into a single introspection call,
+ * and failed introspections are never cached.
+ * The remote call runs on the requesting thread outside of any cache lock, so a slow
+ * introspection endpoint only parks the requests that wait for that token. With virtual
+ * threads enabled, that waiting is cheap.
+ */
+public class CachingOpaqueTokenIntrospector implements OpaqueTokenIntrospector, MeterBinder {
+    private final OpaqueTokenIntrospector delegate;
+    private final Duration maxAge;
+    private final Clock clock = Clock.systemUTC();
+    private final AsyncCache<String, CachedPrincipal> cache;
+
+    public CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, long maximumSize, Duration maxAge) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+        Assert.isTrue(maxAge != null && !maxAge.isNegative(), "maxAge cannot be negative");
+        this.delegate = delegate;
+        this.maxAge = maxAge;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PrincipalExpiry())
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public OAuth2AuthenticatedPrincipal introspect(String token) {
+        String key = hash(token);
+        CompletableFuture<CachedPrincipal> cached = cache.getIfPresent(key);
+        if (cached == null) {
+            CompletableFuture<CachedPrincipal> loading = new CompletableFuture<>();
+            cached = cache.asMap().putIfAbsent(key, loading);
+            if (cached == null) {
+                try {
+                    loading.complete(load(token));
+                }
+                catch (RuntimeException ex) {
+                    loading.completeExceptionally(ex);
+                    throw ex;
+                }
+                cached = loading;
+            }
+        }
+        return join(cached).principal();
+    }
+
+    /**
+     * Hit, miss and eviction counters of the principal cache.
+     * Callers that waited on another thread's in-flight introspection are counted as hits.
+     */
+    public CacheStats getStats() {
+        return cache.synchronous().stats();
+    }
+
+    public long getEstimatedSize() {
+        return cache.synchronous().estimatedSize();
+    }
+
+    /**
+     * Publishes the cache statistics as the {@code cache} meters tagged {@code cache=introspection}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new CaffeineCacheMetrics<>(cache.synchronous(), "introspection", List.of()).bindTo(registry);
+    }
+
+    private static CachedPrincipal join(CompletableFuture<CachedPrincipal> future) {
+        try {
+            return future.join();
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private CachedPrincipal load(String token) {
+        OAuth2AuthenticatedPrincipal principal = delegate.introspect(token);
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(maxAge);
+        Object exp = principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP);
+        if (exp instanceof Instant tokenExpiresAt && tokenExpiresAt.isBefore(expiresAt)) {
+            expiresAt = tokenExpiresAt;
+        }
+        return new CachedPrincipal(principal, expiresAt);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private record CachedPrincipal(OAuth2AuthenticatedPrincipal principal, Instant expiresAt) {
+    }
+
+    private final class PrincipalExpiry implements Expiry<String, CachedPrincipal> {
+        @Override
+        public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+            Duration ttl = Duration.between(clock.instant(), value.expiresAt());
+            return ttl.isNegative() ? 0 : ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package dev.charles.SimpleBlogAPI.utils.security.introspector;
+
+import dev.charles.SimpleBlogAPI.utils.metrics.RequestTags;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.util.Assert;
+
+/**
+ * Records the latency of the remote introspection call as {@value #METRIC}, tagged with the
+ * outcome ({@code active}, {@code inactive} or {@code error}), the endpoint being requested and its search mode.
+ * Wrapped by {@link CachingOpaqueTokenIntrospector}, so it only sees cache misses.
+ */
+public class TimedOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+    public static final String METRIC = "introspection";
+
+    private final OpaqueTokenIntrospector delegate;
+    private final MeterRegistry meterRegistry;
+
+    public TimedOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(meterRegistry, "meterRegistry cannot be null");
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public OAuth2AuthenticatedPrincipal introspect(String token) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            OAuth2AuthenticatedPrincipal principal = delegate.introspect(token);
+            outcome = "active";
+            return principal;
+        }
+        catch (BadOpaqueTokenException ex) {
+            outcome = "inactive";
+            throw ex;
+        }
+        finally {
+            sample.stop(Timer.builder(METRIC)
+                    .description("Latency of remote opaque token introspection")
+                    .tag("outcome", outcome)
+                    .tag("endpoint", RequestTags.endpoint())
+                    .tag("search", RequestTags.searchMode())
+                    .register(meterRegistry));
+        }
+    }
+}
@@ -0,0 +1,45 @@
+-- Materialized path of every comment: the ids from its top-level comment down to itself,
+-- so a whole thread is one GiST range scan (path <@ root) instead of a recursive walk.
+CREATE EXTENSION IF NOT EXISTS ltree;
+
+ALTER TABLE comments
+ADD COLUMN IF NOT EXISTS path LTREE;
+
+WITH RECURSIVE tree AS (
+    SELECT id, text2ltree(id::text) AS path
+    FROM comments
+    WHERE parent_id IS NULL
+    UNION ALL
+    SELECT c.id, t.path || c.id::text
+    FROM comments c
+    JOIN tree t ON c.parent_id = t.id
+)
+UPDATE comments c
+SET path = tree.path
+FROM tree
+WHERE tree.id = c.id;
+
+ALTER TABLE comments
+ALTER COLUMN path SET NOT NULL;
+
+-- Comments are never moved to another parent, so the path is set once on insert.
+CREATE OR REPLACE FUNCTION comments_path() RETURNS trigger AS $$
+BEGIN
+    NEW.path := text2ltree(NEW.id::text);
+    IF NEW.parent_id IS NOT NULL THEN
+        SELECT p.path || NEW.id::text INTO NEW.path FROM comments p WHERE p.id = NEW.parent_id;
+        -- an unknown parent keeps the root path, so the insert fails on fk_comments_parent_id instead
+        IF NOT FOUND THEN
+            NEW.path := text2ltree(NEW.id::text);
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_comments_path
+BEFORE INSERT ON comments
+FOR EACH ROW EXECUTE FUNCTION comments_path();
+
+CREATE INDEX IF NOT EXISTS idx_comments_path
+ON comments USING GIST (path);
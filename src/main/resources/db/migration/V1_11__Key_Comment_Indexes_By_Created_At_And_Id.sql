@@ -0,0 +1,12 @@
+-- Comment listings are ordered by (created_at DESC, id DESC), and the keyset pages seek on that pair.
+-- With id as a key column instead of an INCLUDE column, both read the index in order with no sort,
+-- even for rows created in the same microsecond.
+DROP INDEX IF EXISTS comments_post_created_id;
+
+CREATE INDEX IF NOT EXISTS comments_post_created_id
+ON public.comments (post_id, parent_id, created_at DESC, id DESC);
+
+DROP INDEX IF EXISTS comments_reply_created_id;
+
+CREATE INDEX IF NOT EXISTS comments_reply_created_id
+ON public.comments (parent_id, created_at DESC, id DESC);
@@ -0,0 +1,56 @@
+-- Denormalized counters so comment pages read their totals instead of counting rows.
+-- posts.comment_count counts top-level comments, comments.reply_count counts direct replies.
+ALTER TABLE posts
+ADD COLUMN IF NOT EXISTS comment_count BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE comments
+ADD COLUMN IF NOT EXISTS reply_count BIGINT NOT NULL DEFAULT 0;
+
+UPDATE posts p
+SET comment_count = c.cnt
+FROM (
+    SELECT post_id, count(*) AS cnt
+    FROM comments
+    WHERE parent_id IS NULL
+    GROUP BY post_id
+) c
+WHERE c.post_id = p.id;
+
+UPDATE comments p
+SET reply_count = c.cnt
+FROM (
+    SELECT parent_id, count(*) AS cnt
+    FROM comments
+    WHERE parent_id IS NOT NULL
+    GROUP BY parent_id
+) c
+WHERE c.parent_id = p.id;
+
+-- Triggers keep the counters right for every write path, including ON DELETE CASCADE.
+CREATE OR REPLACE FUNCTION comments_counter_cache() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        IF NEW.parent_id IS NULL THEN
+            UPDATE posts SET comment_count = comment_count + 1 WHERE id = NEW.post_id;
+        ELSE
+            UPDATE comments SET reply_count = reply_count + 1 WHERE id = NEW.parent_id;
+        END IF;
+        RETURN NEW;
+    END IF;
+
+    IF OLD.parent_id IS NULL THEN
+        UPDATE posts SET comment_count = comment_count - 1 WHERE id = OLD.post_id;
+    ELSE
+        UPDATE comments SET reply_count = reply_count - 1 WHERE id = OLD.parent_id;
+    END IF;
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_comments_counter_cache
+AFTER INSERT OR DELETE ON comments
+FOR EACH ROW EXECUTE FUNCTION comments_counter_cache();
+
+-- Only the per-page count() needed these; the covering indexes still serve the FK lookups.
+DROP INDEX IF EXISTS idx_comments_parent_count;
+DROP INDEX IF EXISTS idx_comments_post_parent_count;
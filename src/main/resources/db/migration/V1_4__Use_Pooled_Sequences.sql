@@ -0,0 +1,6 @@
+-- Hibernate draws ids in blocks of 50 from the BIGSERIAL sequences (pooled-lo optimizer),
+-- so inserts no longer need the generated key back and can be batched.
+-- Column defaults keep using the same sequences, each nextval reserving a whole block.
+ALTER SEQUENCE users_id_seq INCREMENT BY 50;
+ALTER SEQUENCE posts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE comments_id_seq INCREMENT BY 50;
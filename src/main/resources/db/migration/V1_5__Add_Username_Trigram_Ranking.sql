@@ -0,0 +1,5 @@
+-- User search filters with "username ILIKE :pattern OR username % :keyword" against the bare column,
+-- which idx_users_username_trgm (GIN) already serves. Ranking by "username <-> :keyword" needs the
+-- GiST operator class, which can hand rows back in distance order so a page stops after LIMIT rows.
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm_gist
+ON users USING gist (username gist_trgm_ops);
@@ -0,0 +1,16 @@
+-- strip() dropped the lexeme positions that ts_rank_cd needs, and title and content weighed the same.
+-- A generated column cannot change its expression in place, so the column and its index are rebuilt.
+DROP INDEX IF EXISTS idx_fts_post;
+
+ALTER TABLE posts
+DROP COLUMN IF EXISTS post_tsv;
+
+ALTER TABLE posts
+ADD COLUMN post_tsv TSVECTOR
+GENERATED ALWAYS AS (
+    setweight(to_tsvector('english', coalesce(posts.title, '')), 'A') ||
+    setweight(to_tsvector('english', coalesce(posts.content, '')), 'B')
+) STORED;
+
+CREATE INDEX idx_fts_post ON posts USING GIN
+(post_tsv);
@@ -0,0 +1,31 @@
+-- Each post now carries the text search configuration its post_tsv is generated with.
+-- Posts containing Hangul, Han or kana characters use 'simple', since Postgres has no CJK parser.
+ALTER TABLE posts
+ADD COLUMN IF NOT EXISTS search_config REGCONFIG NOT NULL DEFAULT 'english';
+
+UPDATE posts
+SET search_config = 'simple'
+WHERE (title || ' ' || content) ~ '[ᄀ-ᇿ぀-ヿ㄰-㆏㐀-䶿一-鿿가-힯]';
+
+DROP INDEX IF EXISTS idx_fts_post;
+
+ALTER TABLE posts
+DROP COLUMN IF EXISTS post_tsv;
+
+ALTER TABLE posts
+ADD COLUMN post_tsv TSVECTOR
+GENERATED ALWAYS AS (
+    setweight(to_tsvector(posts.search_config, coalesce(posts.title, '')), 'A') ||
+    setweight(to_tsvector(posts.search_config, coalesce(posts.content, '')), 'B')
+) STORED;
+
+-- Searches always filter on search_config, so each language only scans its own, smaller index.
+CREATE INDEX idx_fts_post_english ON posts USING GIN (post_tsv)
+WHERE search_config = 'english'::regconfig;
+
+CREATE INDEX idx_fts_post_simple ON posts USING GIN (post_tsv)
+WHERE search_config = 'simple'::regconfig;
+
+-- Substring fallback for 'simple' posts, matching the ngram_match() expression of the dialect.
+CREATE INDEX idx_posts_text_trgm_simple ON posts USING GIN ((title || ' ' || content) gin_trgm_ops)
+WHERE search_config = 'simple'::regconfig;
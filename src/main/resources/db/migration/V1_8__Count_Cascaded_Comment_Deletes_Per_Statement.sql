@@ -0,0 +1,39 @@
+-- Users, posts and comments are now deleted with one statement each and ON DELETE CASCADE
+-- removes the comments below them. A row-level trigger would issue one UPDATE per cascaded
+-- comment, so deletions are counted once per statement over the deleted rows instead.
+DROP TRIGGER IF EXISTS trg_comments_counter_cache ON comments;
+
+CREATE TRIGGER trg_comments_counter_cache
+AFTER INSERT ON comments
+FOR EACH ROW EXECUTE FUNCTION comments_counter_cache();
+
+CREATE OR REPLACE FUNCTION comments_counter_cache_delete() RETURNS trigger AS $$
+BEGIN
+    -- rows of posts and comments deleted by the same cascade are no longer visible here
+    UPDATE posts p
+    SET comment_count = p.comment_count - d.cnt
+    FROM (
+        SELECT post_id, count(*) AS cnt
+        FROM deleted_comments
+        WHERE parent_id IS NULL
+        GROUP BY post_id
+    ) d
+    WHERE d.post_id = p.id;
+
+    UPDATE comments c
+    SET reply_count = c.reply_count - d.cnt
+    FROM (
+        SELECT parent_id, count(*) AS cnt
+        FROM deleted_comments
+        WHERE parent_id IS NOT NULL
+        GROUP BY parent_id
+    ) d
+    WHERE d.parent_id = c.id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_comments_counter_cache_delete
+AFTER DELETE ON comments
+REFERENCING OLD TABLE AS deleted_comments
+FOR EACH STATEMENT EXECUTE FUNCTION comments_counter_cache_delete();
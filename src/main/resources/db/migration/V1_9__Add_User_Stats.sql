@@ -0,0 +1,107 @@
+-- Per-author totals so profile pages read one row instead of counting posts and comments.
+-- last_active_at is the newest post or comment the author wrote; deletions do not move it back.
+CREATE TABLE IF NOT EXISTS user_stats (
+    user_id BIGINT PRIMARY KEY,
+    post_count BIGINT NOT NULL DEFAULT 0,
+    comment_count BIGINT NOT NULL DEFAULT 0,
+    last_active_at TIMESTAMP WITH TIME ZONE,
+
+    CONSTRAINT fk_user_stats_user_id
+        FOREIGN KEY (user_id)
+        REFERENCES users (id)
+        ON DELETE CASCADE
+);
+
+INSERT INTO user_stats (user_id, post_count, comment_count, last_active_at)
+SELECT u.id, coalesce(p.cnt, 0), coalesce(c.cnt, 0), greatest(p.last_at, c.last_at)
+FROM users u
+LEFT JOIN (
+    SELECT created_by_id, count(*) AS cnt, max(created_at) AS last_at
+    FROM posts
+    GROUP BY created_by_id
+) p ON p.created_by_id = u.id
+LEFT JOIN (
+    SELECT created_by_id, count(*) AS cnt, max(created_at) AS last_at
+    FROM comments
+    GROUP BY created_by_id
+) c ON c.created_by_id = u.id
+WHERE p.cnt IS NOT NULL OR c.cnt IS NOT NULL
+ON CONFLICT (user_id) DO NOTHING;
+
+-- Statement-level like the comment counters, so a bulk import or a cascaded delete
+-- adjusts each author's row once instead of once per post or comment.
+CREATE OR REPLACE FUNCTION user_stats_posts_insert() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO user_stats AS s (user_id, post_count, last_active_at)
+    SELECT created_by_id, count(*), max(created_at)
+    FROM inserted_posts
+    WHERE created_by_id IS NOT NULL
+    GROUP BY created_by_id
+    ON CONFLICT (user_id) DO UPDATE
+    SET post_count = s.post_count + excluded.post_count,
+        last_active_at = greatest(s.last_active_at, excluded.last_active_at);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_stats_posts_delete() RETURNS trigger AS $$
+BEGIN
+    -- authors deleted by the same cascade have already lost their row
+    UPDATE user_stats s
+    SET post_count = s.post_count - d.cnt
+    FROM (
+        SELECT created_by_id, count(*) AS cnt
+        FROM deleted_posts
+        GROUP BY created_by_id
+    ) d
+    WHERE d.created_by_id = s.user_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_stats_comments_insert() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO user_stats AS s (user_id, comment_count, last_active_at)
+    SELECT created_by_id, count(*), max(created_at)
+    FROM inserted_comments
+    GROUP BY created_by_id
+    ON CONFLICT (user_id) DO UPDATE
+    SET comment_count = s.comment_count + excluded.comment_count,
+        last_active_at = greatest(s.last_active_at, excluded.last_active_at);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION user_stats_comments_delete() RETURNS trigger AS $$
+BEGIN
+    UPDATE user_stats s
+    SET comment_count = s.comment_count - d.cnt
+    FROM (
+        SELECT created_by_id, count(*) AS cnt
+        FROM deleted_comments
+        GROUP BY created_by_id
+    ) d
+    WHERE d.created_by_id = s.user_id;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_user_stats_posts_insert
+AFTER INSERT ON posts
+REFERENCING NEW TABLE AS inserted_posts
+FOR EACH STATEMENT EXECUTE FUNCTION user_stats_posts_insert();
+
+CREATE TRIGGER trg_user_stats_posts_delete
+AFTER DELETE ON posts
+REFERENCING OLD TABLE AS deleted_posts
+FOR EACH STATEMENT EXECUTE FUNCTION user_stats_posts_delete();
+
+CREATE TRIGGER trg_user_stats_comments_insert
+AFTER INSERT ON comments
+REFERENCING NEW TABLE AS inserted_comments
+FOR EACH STATEMENT EXECUTE FUNCTION user_stats_comments_insert();
+
+CREATE TRIGGER trg_user_stats_comments_delete
+AFTER DELETE ON comments
+REFERENCING OLD TABLE AS deleted_comments
+FOR EACH STATEMENT EXECUTE FUNCTION user_stats_comments_delete();
@@ -17,5 +17,7 @@ public abstract class AbstractIntegrationTest {
         registry.add("spring.datasource.url", postgres::getJdbcUrl);
         registry.add("spring.datasource.username", postgres::getUsername);
         registry.add("spring.datasource.password", postgres::getPassword);
+        // repository tests assert cache hits through the Hibernate statistics
+        registry.add("spring.jpa.properties.hibernate.generate_statistics", () -> true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,152 @@
+package dev.charles.SimpleBlogAPI.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkImporter;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult.Status;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class BulkImporterTest {
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private BulkImporter importer;
+    private final List<String> written = new ArrayList<>();
+    private final List<BulkItemResult> results = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setup() {
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        importer = new BulkImporter(new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(),
+                entityManager, transactionManager, 3, 2);
+    }
+
+    private void importPosts(String body) {
+        importer.importAll(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), PostDto.class,
+                postDto -> {
+                    if (postDto.getTitle().equals("bad")) {
+                        throw new IllegalArgumentException("bad title");
+                    }
+                    written.add(postDto.getTitle());
+                    return ids.incrementAndGet();
+                }, results::add);
+    }
+
+    private static String post(String title) {
+        return "{\"title\":\"" + title + "\",\"content\":\"content\"}";
+    }
+
+    @Nested
+    @DisplayName("Given a well-formed body")
+    class WellFormedTest {
+        @Test
+        @DisplayName("Then a JSON array is imported in chunks and every item is reported")
+        void importsArray() {
+            importPosts("[" + String.join(",", post("a"), post("b"), post("c"), post("d")) + "]");
+
+            assertThat(written).containsExactly("a", "b", "c", "d");
+            assertThat(results).extracting(BulkItemResult::index).containsExactly(0L, 1L, 2L, 3L);
+            assertThat(results).extracting(BulkItemResult::status).containsOnly(Status.CREATED);
+            verify(entityManager, atLeastOnce()).flush();
+            verify(entityManager, atLeastOnce()).clear();
+        }
+
+        @Test
+        @DisplayName("Then NDJSON is imported the same way")
+        void importsNdjson() {
+            importPosts(post("a") + "\n" + post("b") + "\n");
+
+            assertThat(written).containsExactly("a", "b");
+            assertThat(results).extracting(BulkItemResult::id).containsExactly(1L, 2L);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a body with bad items")
+    class BadItemTest {
+        @Test
+        @DisplayName("Then items failing validation or binding are reported and skipped")
+        void reportsInvalidItems() {
+            importPosts(post("a") + "\n{\"content\":\"content\"}\n{\"title\":[1],\"content\":\"c\"}\n" + post("b"));
+
+            assertThat(written).containsExactly("a", "b");
+            assertThat(results).filteredOn(result -> result.status() == Status.INVALID)
+                    .extracting(BulkItemResult::index).containsExactlyInAnyOrder(1L, 2L);
+            assertThat(results).filteredOn(result -> result.index() == 1L)
+                    .extracting(BulkItemResult::error).containsExactly("title: Input title");
+        }
+
+        @Test
+        @DisplayName("Then a failing chunk is retried item by item so only the bad item fails")
+        void isolatesFailingItem() {
+            importPosts(post("a") + "\n" + post("bad") + "\n" + post("c"));
+
+            assertThat(written).containsExactly("a", "a", "c");
+            assertThat(results).extracting(BulkItemResult::status)
+                    .containsExactly(Status.CREATED, Status.FAILED, Status.CREATED);
+            assertThat(results.get(1).error()).isEqualTo("bad title");
+        }
+
+        @Test
+        @DisplayName("Then malformed JSON stops the import after the items read so far")
+        void stopsOnMalformedJson() {
+            importPosts(post("a") + "\n{\"title\": oops");
+
+            assertThat(written).containsExactly("a");
+            assertThat(results).hasSize(2);
+            assertThat(results).filteredOn(result -> result.status() == Status.INVALID)
+                    .singleElement()
+                    .satisfies(result -> assertThat(result.error()).startsWith("Malformed JSON"));
+        }
+
+        @Test
+        @DisplayName("Then a failing report writer leaves the unfinished chunk unwritten")
+        void doesNotWriteAfterReportFails() {
+            UncheckedIOException broken = new UncheckedIOException(new IOException("Broken pipe"));
+            String body = post("a") + "\n{\"content\":\"content\"}\n" + post("b");
+
+            Throwable thrown = catchThrowable(() -> importer.importAll(
+                    new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), PostDto.class,
+                    postDto -> {
+                        written.add(postDto.getTitle());
+                        return ids.incrementAndGet();
+                    },
+                    result -> { throw broken; }));
+
+            assertThat(thrown).isSameAs(broken);
+            assertThat(written).isEmpty();
+            verify(transactionManager, never()).getTransaction(any());
+        }
+    }
+}
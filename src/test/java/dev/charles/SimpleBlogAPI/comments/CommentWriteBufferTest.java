@@ -0,0 +1,261 @@
+package dev.charles.SimpleBlogAPI.comments;
+
+import dev.charles.SimpleBlogAPI.comments.domain.Comments;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
+import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
+import dev.charles.SimpleBlogAPI.comments.service.CommentWriteBuffer;
+import dev.charles.SimpleBlogAPI.errors.exception.TooManyRequestsException;
+import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
+import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.jpa.JpaSystemException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CommentWriteBufferTest {
+    @Mock
+    private CommentsRepository commentsRepository;
+    @Mock
+    private PostsRepository postsRepository;
+    @Mock
+    private UsersRepository usersRepository;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+    private CommentWriteBuffer buffer;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        buffer = buffer(Duration.ofSeconds(30));
+        lenient().when(commentsRepository.save(any(Comments.class))).then(returnsFirstArg());
+    }
+
+    @AfterEach
+    void teardown() {
+        buffer.stop();
+    }
+
+    private CommentWriteBuffer buffer(Duration drainTimeout) {
+        return new CommentWriteBuffer(commentsRepository, postsRepository, usersRepository, transactionManager,
+                meterRegistry, true, 2, 500, Duration.ofMillis(50), drainTimeout, Duration.ofMillis(1));
+    }
+
+    private CommentsRequestDto request(String content) {
+        return CommentsRequestDto.builder().postId(1L).content(content).build();
+    }
+
+    // holds the worker inside its first save until released, so the next comments queue up behind it
+    private List<String> blockFirstSave(CountDownLatch saving, CountDownLatch release) {
+        List<String> saved = new CopyOnWriteArrayList<>();
+        given(commentsRepository.save(any(Comments.class))).willAnswer(invocation -> {
+            saving.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            Comments comment = invocation.getArgument(0);
+            if (comment.getContent().equals("comment2")) {
+                throw new DataIntegrityViolationException("violates foreign key constraint \"fk_comments_post_id\"");
+            }
+            saved.add(comment.getContent());
+            return comment;
+        });
+        return saved;
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("comments.write_behind").tag("outcome", outcome).counter().count();
+    }
+
+    @Nested
+    @DisplayName("Given the buffer is running")
+    class RunningTest {
+        @BeforeEach
+        void setup() {
+            buffer.start();
+        }
+
+        @Test
+        @DisplayName("Then queued comments are written when the buffer stops")
+        void drainsOnStop() {
+            UUID first = buffer.enqueue(request("comment1"), 7L);
+            UUID second = buffer.enqueue(request("comment2"), 7L);
+
+            buffer.stop();
+
+            assertThat(first).isNotEqualTo(second);
+            verify(commentsRepository, times(2)).save(any(Comments.class));
+            verify(usersRepository, times(2)).getReferenceById(7L);
+            assertThat(outcome("written")).isEqualTo(2);
+            assertThat(buffer.isRunning()).isFalse();
+        }
+
+        @Test
+        @DisplayName("Then a comment beyond the capacity is rejected")
+        void rejectsWhenFull() throws InterruptedException {
+            CountDownLatch saving = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            blockFirstSave(saving, release);
+            buffer.enqueue(request("comment0"), 7L);
+            assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+            buffer.enqueue(request("comment1"), 7L);
+            buffer.enqueue(request("comment3"), 7L);
+
+            assertThatThrownBy(() -> buffer.enqueue(request("comment4"), 7L))
+                    .isInstanceOf(TooManyRequestsException.class);
+            release.countDown();
+            buffer.stop();
+
+            assertThat(outcome("rejected")).isEqualTo(1);
+            assertThat(outcome("written")).isEqualTo(3);
+        }
+
+        @Test
+        @DisplayName("Then a comment violating a constraint is dropped without its batch")
+        void retriesFailedBatchOneByOne() throws InterruptedException {
+            CountDownLatch saving = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<String> saved = blockFirstSave(saving, release);
+            buffer.enqueue(request("comment0"), 7L);
+            assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+            buffer.enqueue(request("comment1"), 7L);
+            buffer.enqueue(request("comment2"), 7L);
+            release.countDown();
+
+            buffer.stop();
+
+            // comment1 is saved in the failed batch and again on its own
+            assertThat(saved).containsExactly("comment0", "comment1", "comment1");
+            verify(commentsRepository, times(2)).save(argThat(comment -> comment.getContent().equals("comment2")));
+            assertThat(outcome("written")).isEqualTo(2);
+            assertThat(outcome("failed")).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given the database is temporarily unavailable")
+    class TransientFailureTest {
+        @Test
+        @DisplayName("Then the batch is kept and written once a transaction can be opened")
+        void retriesTransientFailure() {
+            given(transactionManager.getTransaction(any()))
+                    .willThrow(new CannotCreateTransactionException("Connection is not available"))
+                    .willThrow(new CannotCreateTransactionException("Connection is not available"))
+                    .willReturn(null);
+            buffer.start();
+            buffer.enqueue(request("comment1"), 7L);
+
+            buffer.stop();
+
+            verify(transactionManager, times(3)).getTransaction(any());
+            verify(commentsRepository, times(1)).save(any(Comments.class));
+            assertThat(outcome("written")).isEqualTo(1);
+            assertThat(outcome("failed")).isZero();
+        }
+
+        @Test
+        @DisplayName("Then a shutdown gives up once the drain timeout has passed")
+        void givesUpAfterDrainTimeout() {
+            given(transactionManager.getTransaction(any()))
+                    .willThrow(new CannotCreateTransactionException("Connection is not available"));
+            buffer = buffer(Duration.ofMillis(100));
+            buffer.start();
+            buffer.enqueue(request("comment1"), 7L);
+
+            buffer.stop();
+
+            verify(commentsRepository, never()).save(any());
+            assertThat(outcome("lost")).isEqualTo(1);
+            assertThat(outcome("failed")).isZero();
+        }
+
+        @Test
+        @DisplayName("Then the comments still queued behind a stuck worker are counted as lost")
+        void losesQueuedCommentsOfStuckWorker() throws InterruptedException {
+            CountDownLatch saving = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            // blocks past the drain timeout plus the worker's longest backoff
+            given(commentsRepository.save(any(Comments.class))).willAnswer(invocation -> {
+                saving.countDown();
+                release.await(30, TimeUnit.SECONDS);
+                return invocation.getArgument(0);
+            });
+            buffer = buffer(Duration.ofMillis(100));
+            buffer.start();
+            buffer.enqueue(request("comment0"), 7L);
+            assertThat(saving.await(5, TimeUnit.SECONDS)).isTrue();
+            buffer.enqueue(request("comment1"), 7L);
+
+            buffer.stop();
+            release.countDown();
+
+            assertThat(outcome("lost")).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a comment fails with an error that is not transient")
+    class PersistentFailureTest {
+        @Test
+        @DisplayName("Then the batch is retried a few times and only the comment at fault is dropped")
+        void dropsCommentAfterBoundedRetries() {
+            given(commentsRepository.save(any(Comments.class))).willAnswer(invocation -> {
+                Comments comment = invocation.getArgument(0);
+                if (comment.getContent().equals("comment2")) {
+                    throw new JpaSystemException(new IllegalStateException("could not bind parameter"));
+                }
+                return comment;
+            });
+            buffer.start();
+            buffer.enqueue(request("comment1"), 7L);
+            buffer.enqueue(request("comment2"), 7L);
+
+            buffer.stop();
+
+            // three batch attempts, then one on its own
+            verify(commentsRepository, times(4)).save(argThat(comment -> comment.getContent().equals("comment2")));
+            assertThat(outcome("written")).isEqualTo(1);
+            assertThat(outcome("failed")).isEqualTo(1);
+            assertThat(outcome("lost")).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("Given the buffer is not running")
+    class StoppedTest {
+        @Test
+        @DisplayName("Then no comment is accepted")
+        void rejectsWhenStopped() {
+            assertThatThrownBy(() -> buffer.enqueue(request("comment1"), 7L))
+                    .isInstanceOf(TooManyRequestsException.class);
+        }
+    }
+}
@@ -3,10 +3,14 @@ package dev.charles.SimpleBlogAPI.comments;
 import dev.charles.SimpleBlogAPI.AbstractIntegrationTest;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
 import dev.charles.SimpleBlogAPI.comments.service.CommentsService;
+import dev.charles.SimpleBlogAPI.errors.exception.TooManyRequestsException;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -15,13 +19,19 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.util.List;
+import java.util.UUID;
+
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.opaqueToken;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class CommentsControllerTest extends AbstractIntegrationTest {
@@ -72,6 +82,56 @@ class CommentsControllerTest extends AbstractIntegrationTest {
                 verify(commentsService, times(1)).createComment(argThat(dto->
                         dto.getContent().equals(text) && dto.getPostId().equals(1L) && dto.getParentId() == null), eq(email));
             }
+
+            @Test
+            @DisplayName("Then a buffered comment is accepted with a provisional id")
+            void bufferComment() throws Exception {
+                UUID provisionalId = UUID.randomUUID();
+                given(commentsService.isBuffered()).willReturn(true);
+                given(commentsService.bufferComment(any(), eq(email))).willReturn(provisionalId);
+
+                mockMvc.perform(post("/api/comments").with(opaqueToken()
+                        .attributes(attrs -> attrs.put("email",email)))
+                                .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)
+                                ))
+                        .andExpect(status().isAccepted())
+                        .andExpect(jsonPath("$.provisionalId").value(provisionalId.toString()));
+                verify(commentsService, never()).createComment(any(), any());
+            }
+
+            @ParameterizedTest
+            @CsvSource({"false, hi", "true, hi", "false,", "true,"})
+            @DisplayName("Then a short or missing comment is rejected whether or not it would be buffered")
+            void rejectInvalidComment(boolean buffered, String content) throws Exception {
+                given(commentsService.isBuffered()).willReturn(buffered);
+                CommentsRequestDto invalid = CommentsRequestDto.builder().postId(1L).content(content).build();
+
+                mockMvc.perform(post("/api/comments").with(opaqueToken()
+                        .attributes(attrs -> attrs.put("email",email)))
+                                .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(invalid)
+                                ))
+                        .andExpect(status().isBadRequest());
+                verify(commentsService, never()).createComment(any(), any());
+                verify(commentsService, never()).bufferComment(any(), any());
+            }
+
+            @Test
+            @DisplayName("Then a full comment buffer answers too many requests")
+            void bufferFull() throws Exception {
+                given(commentsService.isBuffered()).willReturn(true);
+                given(commentsService.bufferComment(any(), eq(email)))
+                        .willThrow(new TooManyRequestsException("Comment buffer is full or draining"));
+
+                mockMvc.perform(post("/api/comments").with(opaqueToken()
+                        .attributes(attrs -> attrs.put("email",email)))
+                                .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requestDto)
+                                ))
+                        .andExpect(status().isTooManyRequests())
+                        .andExpect(jsonPath("$.code").value("TOO_MANY_REQUESTS"));
+            }
         }
         @Nested
         @DisplayName("When we have a commentId")
@@ -154,6 +214,54 @@ class CommentsControllerTest extends AbstractIntegrationTest {
                 verify(commentsService, times(1)).getRepliesByParentId(parentId, pageNumber);
             }
 
+            @Test
+            @DisplayName("Then you can get a keyset page of replies with a cursor")
+            void getRepliesAfter() throws Exception{
+                given(commentsService.getRepliesByParentIdAfter(1L, "")).willReturn(new CursorPage<>(List.of(), 10, null));
+
+                mockMvc.perform(get("/api/comments/paged/reply")
+                                .param("parentId", "1")
+                                .param("after", "")
+                                .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+
+                verify(commentsService, times(1)).getRepliesByParentIdAfter(1L, "");
+                verify(commentsService, times(0)).getRepliesByParentId(any(), any());
+            }
+
+            @Test
+            @DisplayName("Then you can get the comment tree with the configured depth and replies")
+            void getCommentTree() throws Exception{
+                mockMvc.perform(get("/api/comments/tree")
+                                .param("postId", "1")
+                                .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk());
+
+                verify(commentsService, times(1)).getCommentTree(1L, 0, 2, 3);
+            }
+
+            @Test
+            @DisplayName("Then you can get the number of replies below a comment")
+            void countThreadReplies() throws Exception{
+                given(commentsService.countThreadReplies(1L)).willReturn(4L);
+
+                mockMvc.perform(get("/api/comments/thread/count")
+                                .param("commentId", "1")
+                                .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(content().string("4"));
+            }
+
+            @Test
+            @DisplayName("Then a depth above the limit is rejected")
+            void getCommentTreeTooDeep() throws Exception{
+                mockMvc.perform(get("/api/comments/tree")
+                                .param("postId", "1")
+                                .param("depth", "6")
+                                .contentType(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isBadRequest());
+            }
+
         }
     }
 
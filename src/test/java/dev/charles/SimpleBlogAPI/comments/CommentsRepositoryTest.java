@@ -4,6 +4,7 @@ import dev.charles.SimpleBlogAPI.AbstractIntegrationTest;
 import dev.charles.SimpleBlogAPI.comments.domain.Comments;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsTreeDto;
 import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
@@ -11,12 +12,15 @@ import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Nested;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.SoftAssertions.assertSoftly;
@@ -28,6 +32,8 @@ public class CommentsRepositoryTest extends AbstractIntegrationTest {
     private PostsRepository postsRepository;
     @Autowired
     private UsersRepository usersRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     @DisplayName("Given 1 user, 5 posts, and 5 parentComments which of one has 3 replies ")
     @Nested
@@ -145,6 +151,148 @@ public class CommentsRepositoryTest extends AbstractIntegrationTest {
             }
         }
 
+        @Nested
+        @DisplayName("When we page with a cursor")
+        class Keyset{
+            @Test
+            @DisplayName("Then every reply is returned once, newest first, across pages")
+            void findAllChildrenByParentIdAfter() {
+                CursorPage<CommentsResponseDto> first = commentsRepository.findAllChildrenByParentIdAfter(parentComment.getId(), null, 2);
+                CursorPage<CommentsResponseDto> second = commentsRepository.findAllChildrenByParentIdAfter(parentComment.getId(),
+                        Cursors.decodeCreatedAt(first.getNextCursor()), 2);
+                assertSoftly((softly)-> {
+                    softly.assertThat(first.getContent()).extracting(CommentsResponseDto::getContent)
+                            .containsExactly("reply1", "reply2");
+                    softly.assertThat(first.isHasNext()).isTrue();
+                    softly.assertThat(second.getContent()).extracting(CommentsResponseDto::getContent)
+                            .containsExactly("reply3");
+                    softly.assertThat(second.getNextCursor()).isNull();
+                });
+            }
+
+            @Test
+            @DisplayName("Then parent comments with the same created_at are ordered by id")
+            void findAllParentsByPostIdAfterWithTies() {
+                jdbcTemplate.update("UPDATE comments SET created_at = '2025-01-01T00:00:00Z' WHERE post_id = ? AND parent_id IS NULL",
+                        curPost.getId());
+                CursorPage<CommentsResponseDto> first = commentsRepository.findAllParentsByPostIdAfter(curPost.getId(), null, 3);
+                CursorPage<CommentsResponseDto> second = commentsRepository.findAllParentsByPostIdAfter(curPost.getId(),
+                        Cursors.decodeCreatedAt(first.getNextCursor()), 3);
+                assertSoftly((softly)-> {
+                    softly.assertThat(first.getContent()).extracting(CommentsResponseDto::getContent)
+                            .containsExactly("comment1", "comment2", "comment3");
+                    softly.assertThat(second.getContent()).extracting(CommentsResponseDto::getContent)
+                            .containsExactly("comment4", "comment5");
+                    softly.assertThat(second.isHasNext()).isFalse();
+                });
+            }
+        }
+
+        @Nested
+        @DisplayName("When we fetch the comment tree of the post")
+        class Tree{
+            @Test
+            @DisplayName("Then the top-level comments come with their newest replies up to the fan-out")
+            void findTreeByPostId() {
+                Page<CommentsTreeDto> result = commentsRepository.findTreeByPostId(curPost.getId(), 1, 2, pageable);
+                CommentsTreeDto parent = result.getContent().stream()
+                        .filter(comment -> comment.getId().equals(parentComment.getId()))
+                        .findFirst().orElseThrow();
+                assertSoftly((softly)-> {
+                    softly.assertThat(result.getTotalElements()).isEqualTo(5);
+                    softly.assertThat(result.getContent()).hasSize(5)
+                            .extracting(CommentsTreeDto::getContent)
+                            .allMatch(content -> content.contains("comment"));
+                    softly.assertThat(parent.getReplyCount()).isEqualTo(3);
+                    softly.assertThat(parent.getReplies()).hasSize(2)
+                            .extracting(CommentsTreeDto::getContent)
+                            .containsExactly("reply1", "reply2");
+                    softly.assertThat(parent.getCreatedById()).isEqualTo(curUser.getId());
+                    softly.assertThat(parent.getCreatedBy()).isNull();
+                });
+            }
+
+            @Test
+            @DisplayName("Then depth 0 returns the top-level comments alone")
+            void findTreeWithoutReplies() {
+                Page<CommentsTreeDto> result = commentsRepository.findTreeByPostId(curPost.getId(), 0, 3, pageable);
+                assertThat(result.getContent()).hasSize(5)
+                        .allMatch(comment -> comment.getReplies().isEmpty());
+            }
+
+            @Test
+            @DisplayName("Then a page past the last one still reports the post's comment total")
+            void findTreePastLastPage() {
+                Page<CommentsTreeDto> result = commentsRepository.findTreeByPostId(curPost.getId(), 1, 2, PageRequest.of(3, 10));
+                assertSoftly((softly)-> {
+                    softly.assertThat(result.getContent()).isEmpty();
+                    softly.assertThat(result.getTotalElements()).isEqualTo(5);
+                });
+            }
+
+            @Test
+            @DisplayName("Then the thread of a comment holds all its replies at any depth")
+            void findSubtreeById() {
+                Comments reply = commentsRepository.findAll().stream()
+                        .filter(comment -> comment.getContent().equals("reply1"))
+                        .findFirst().orElseThrow();
+                commentsRepository.save(Comments.builder()
+                        .parentComment(reply)
+                        .post(curPost)
+                        .user(curUser)
+                        .content("nested").build());
+
+                CommentsTreeDto thread = commentsRepository.findSubtreeById(parentComment.getId()).orElseThrow();
+
+                assertSoftly((softly)-> {
+                    softly.assertThat(thread.getId()).isEqualTo(parentComment.getId());
+                    softly.assertThat(thread.getReplies()).hasSize(3);
+                    softly.assertThat(thread.getReplies()).flatExtracting(CommentsTreeDto::getReplies)
+                            .extracting(CommentsTreeDto::getContent).containsExactly("nested");
+                    softly.assertThat(commentsRepository.countDescendantsById(parentComment.getId())).isEqualTo(4);
+                    softly.assertThat(commentsRepository.countDescendantsById(reply.getId())).isEqualTo(1);
+                });
+            }
+
+            @Test
+            @DisplayName("Then an unknown comment has no thread")
+            void findNoSubtree() {
+                assertThat(commentsRepository.findSubtreeById(98321L)).isEmpty();
+                assertThat(commentsRepository.countDescendantsById(98321L)).isZero();
+            }
+
+            @Test
+            @DisplayName("Then an unknown post gives an empty page")
+            void findNoTree() {
+                Page<CommentsTreeDto> result = commentsRepository.findTreeByPostId(98321L, 2, 3, pageable);
+                assertThat(result.getTotalElements()).isEqualTo(0);
+            }
+        }
+
+        @Nested
+        @DisplayName("When the counter columns drift from the comments table")
+        class CounterDrift{
+            @BeforeEach
+            void setup(){
+                jdbcTemplate.update("UPDATE posts SET comment_count = 99");
+                jdbcTemplate.update("UPDATE comments SET reply_count = 99");
+            }
+            @Test
+            @DisplayName("Then reconciling restores the actual counts")
+            void reconcile() {
+                int repairedPosts = commentsRepository.reconcileCommentCounts();
+                int repairedComments = commentsRepository.reconcileReplyCounts();
+                assertSoftly((softly)-> {
+                    softly.assertThat(repairedPosts).isEqualTo(5);
+                    softly.assertThat(repairedComments).isEqualTo(8);
+                    softly.assertThat(commentsRepository.findAllParentsByPostId(curPost.getId(), pageable)
+                            .getTotalElements()).isEqualTo(5);
+                    softly.assertThat(commentsRepository.findAllChildrenByParentId(parentComment.getId(), pageable)
+                            .getTotalElements()).isEqualTo(3);
+                });
+            }
+        }
+
     }
 
     @DisplayName("Given 1 user,1 post,and 1 parentComment ")
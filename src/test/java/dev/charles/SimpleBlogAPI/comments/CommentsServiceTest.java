@@ -2,15 +2,25 @@ package dev.charles.SimpleBlogAPI.comments;
 
 import dev.charles.SimpleBlogAPI.comments.domain.Comments;
 import dev.charles.SimpleBlogAPI.comments.dto.CommentsRequestDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsResponseDto;
+import dev.charles.SimpleBlogAPI.comments.dto.CommentsTreeDto;
 import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
+import dev.charles.SimpleBlogAPI.comments.service.CommentWriteBuffer;
 import dev.charles.SimpleBlogAPI.comments.service.CommentsService;
 import dev.charles.SimpleBlogAPI.errors.exception.NotAuthorizedException;
+import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
 import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.users.service.AuthorCache;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkImporter;
+import dev.charles.SimpleBlogAPI.utils.pagination.CreatedAtCursor;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -19,12 +29,24 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -36,6 +58,12 @@ class CommentsServiceTest {
     private PostsRepository postsRepository;
     @Mock
     private UsersRepository usersRepository;
+    @Mock
+    private BulkImporter bulkImporter;
+    @Mock
+    private AuthorCache authorCache;
+    @Mock
+    private CommentWriteBuffer commentWriteBuffer;
     @InjectMocks
     private CommentsService commentsService;
 
@@ -59,6 +87,7 @@ class CommentsServiceTest {
             @Test
             @DisplayName("Then you can retrieve a pagination of parent comments ranging from 0 to 10, sorted by creation date in descending order")
             void getCommentsByPostId(){
+                given(commentsRepository.findAllParentsByPostId(eq(postId), any())).willReturn(Page.empty());
                 commentsService.getCommentsByPostId(postId, pageNumber);
                 verify(commentsRepository, times(1)).findAllParentsByPostId(eq(postId), argThat(pageable ->
                         pageable.getPageNumber() == 0 && pageable.getPageSize() == 10));
@@ -71,10 +100,96 @@ class CommentsServiceTest {
             @Test
             @DisplayName("Then you can retrieve a pagination of child comments ranging from 0 to 10, sorted by creation date in descending order")
             void getRepliesByParentId(){
+                given(commentsRepository.findAllChildrenByParentId(eq(parentId), any())).willReturn(Page.empty());
                 commentsService.getRepliesByParentId(parentId, pageNumber);
                 verify(commentsRepository, times(1)).findAllChildrenByParentId(eq(parentId), argThat(pageable ->
                         pageable.getPageNumber() == 0 && pageable.getPageSize() == 10));
             }
+
+            @Test
+            @DisplayName("Then the authors of the page are resolved with one cache lookup and attached by id")
+            void attachesAuthors(){
+                Instant now = Instant.now();
+                List<CommentsResponseDto> rows = List.of(
+                        new CommentsResponseDto("first", now, now, 5L),
+                        new CommentsResponseDto("second", now, now, 5L),
+                        new CommentsResponseDto("third", now, now, 6L));
+                UserDto mike = new UserDto("mike@gmail.com", "mike");
+                UserDto jane = new UserDto("jane@gmail.com", "jane");
+                given(commentsRepository.findAllChildrenByParentId(eq(parentId), any())).willReturn(new PageImpl<>(rows));
+                given(authorCache.getAll(Set.of(5L, 6L))).willReturn(Map.of(5L, mike, 6L, jane));
+
+                Page<CommentsResponseDto> result = commentsService.getRepliesByParentId(parentId, pageNumber);
+
+                assertThat(result.getContent()).extracting(CommentsResponseDto::getCreatedBy)
+                        .containsExactly(mike, mike, jane);
+                verify(authorCache, times(1)).getAll(any());
+            }
+        }
+
+        @Nested
+        @DisplayName("When we have a cursor")
+        class cursor{
+            @Test
+            @DisplayName("Then the first page of parent comments is fetched without a position")
+            void getCommentsByPostIdAfter(){
+                given(commentsRepository.findAllParentsByPostIdAfter(postId, null, 10)).willReturn(new CursorPage<>(List.of(), 10, null));
+                commentsService.getCommentsByPostIdAfter(postId, "");
+                verify(commentsRepository, times(1)).findAllParentsByPostIdAfter(postId, null, 10);
+            }
+
+            @Test
+            @DisplayName("Then the next page of replies starts after the decoded created_at and id")
+            void getRepliesByParentIdAfter(){
+                Instant createdAt = Instant.parse("2025-01-02T03:04:05.123456Z");
+                given(commentsRepository.findAllChildrenByParentIdAfter(parentId, new CreatedAtCursor(createdAt, 7L), 10))
+                        .willReturn(new CursorPage<>(List.of(), 10, null));
+                commentsService.getRepliesByParentIdAfter(parentId, Cursors.encodeCreatedAt(createdAt, 7L));
+                verify(commentsRepository, times(1)).findAllChildrenByParentIdAfter(parentId, new CreatedAtCursor(createdAt, 7L), 10);
+            }
+
+            @Test
+            @DisplayName("Then a malformed cursor is rejected")
+            void getRepliesWithInvalidCursor(){
+                assertThatThrownBy(() -> commentsService.getRepliesByParentIdAfter(parentId, Cursors.encodeId(7L)))
+                        .isInstanceOf(IllegalArgumentException.class);
+            }
+        }
+
+        @Nested
+        @DisplayName("When we ask for the comment tree of a post")
+        class tree{
+            @Test
+            @DisplayName("Then a page of 10 top-level comments is fetched with the given depth and replies")
+            void getCommentTree(){
+                given(commentsRepository.findTreeByPostId(eq(postId), eq(2), eq(3), any())).willReturn(Page.empty());
+                commentsService.getCommentTree(postId, pageNumber, 2, 3);
+                verify(commentsRepository, times(1)).findTreeByPostId(eq(postId), eq(2), eq(3), argThat(pageable ->
+                        pageable.getPageNumber() == 0 && pageable.getPageSize() == 10));
+            }
+
+            @Test
+            @DisplayName("Then the whole thread below a comment is read by its path")
+            void getThread(){
+                CommentsTreeDto thread = CommentsTreeDto.builder().id(parentId).content("parent").createdById(5L).build();
+                CommentsTreeDto reply = CommentsTreeDto.builder().id(3L).parentId(parentId).content("reply").createdById(6L).build();
+                thread.getReplies().add(reply);
+                UserDto jane = new UserDto("jane@gmail.com", "jane");
+                given(commentsRepository.findSubtreeById(parentId)).willReturn(Optional.of(thread));
+                given(authorCache.getAll(Set.of(5L, 6L))).willReturn(Map.of(6L, jane));
+
+                assertThat(commentsService.getThread(parentId)).isSameAs(thread);
+                assertThat(reply.getCreatedBy()).isSameAs(jane);
+            }
+
+            @Test
+            @DisplayName("Then the thread of an unknown comment is reported as not found")
+            void getMissingThread(){
+                given(commentsRepository.findSubtreeById(parentId)).willReturn(Optional.empty());
+
+                assertThatThrownBy(() -> commentsService.getThread(parentId))
+                        .isInstanceOf(NotFoundResourceException.class);
+            }
         }
     }
 
@@ -129,11 +244,45 @@ class CommentsServiceTest {
             void updateComment(){
                 commentsService.deleteComment(commentId, email);
                 verify(commentsRepository, times(1)).findById(commentId);
-                verify(commentsRepository, times(1)).delete(comment);
+                verify(commentsRepository, times(1)).bulkDeleteById(commentId);
+                verify(commentsRepository, never()).delete(any());
             }
         }
     }
 
+    @Nested
+    @DisplayName("Given comments are written behind")
+    class bufferCommentTest{
+        private String email = "sample@email.com";
+        private CommentsRequestDto requestDto = CommentsRequestDto.builder()
+                .postId(1L)
+                .content("comment1").build();
+
+        @Test
+        @DisplayName("Then the comment is queued with the writer id and nothing is inserted")
+        void bufferComment(){
+            Users user = Users.of(UserDto.builder().email(email).username("test").build());
+            UUID provisionalId = UUID.randomUUID();
+            given(usersRepository.findByEmail(email)).willReturn(Optional.of(user));
+            given(commentWriteBuffer.enqueue(requestDto, user.getId())).willReturn(provisionalId);
+
+            UUID result = commentsService.bufferComment(requestDto, email);
+
+            assertThat(result).isEqualTo(provisionalId);
+            verify(commentsRepository, never()).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("Then an unknown writer is reported before anything is queued")
+        void bufferCommentOfMissingUser(){
+            given(usersRepository.findByEmail(email)).willReturn(Optional.empty());
+
+            assertThatThrownBy(() -> commentsService.bufferComment(requestDto, email))
+                    .isInstanceOf(NotFoundResourceException.class);
+            verify(commentWriteBuffer, never()).enqueue(any(), any());
+        }
+    }
+
     @Nested
     @DisplayName("Given we have a user and a post")
     class createCommentTest{
@@ -155,7 +304,7 @@ class CommentsServiceTest {
                     .content("test c").build();
             post = Posts.of(postDto);
             given(usersRepository.findByEmail(email)).willReturn(Optional.of(user));
-            given(postsRepository.findById(1L)).willReturn(Optional.of(post));
+            given(postsRepository.getReferenceById(1L)).willReturn(post);
         }
 
         @Nested
@@ -175,16 +324,107 @@ class CommentsServiceTest {
             void createComment(){
                 commentsService.createComment(requestDto, email);
                 verify(usersRepository, times(1)).findByEmail(email);
-                verify(postsRepository, times(1)).findById(1L);
-                verify(commentsRepository, times(1)).findById(null);
-                verify(commentsRepository, times(1)).save(argThat(
+                verify(postsRepository, times(1)).getReferenceById(1L);
+                verify(postsRepository, never()).findById(any());
+                verify(commentsRepository, never()).getReferenceById(any());
+                verify(commentsRepository, times(1)).saveAndFlush(argThat(
                         comments -> comments.getPost() == post && comments.getContent() == content &&
-                                comments.getCreatedBy() == user
+                                comments.getCreatedBy() == user && comments.getParentComment() == null
+                ));
+            }
+
+            @Test
+            @DisplayName("Then a post that does not exist is reported as not found")
+            void createCommentOnMissingPost(){
+                given(commentsRepository.saveAndFlush(any())).willThrow(foreignKeyViolation("fk_comments_post_id"));
+
+                assertThatThrownBy(() -> commentsService.createComment(requestDto, email))
+                        .isInstanceOf(NotFoundResourceException.class)
+                        .hasMessageContaining("Post not found by id: 1");
+            }
+        }
+
+        @Nested
+        @DisplayName("When we reply to a parent comment")
+        class ReplyProperty{
+            private CommentsRequestDto requestDto;
+
+            @BeforeEach
+            void setup(){
+                requestDto = CommentsRequestDto.builder()
+                        .postId(1L)
+                        .parentId(7L)
+                        .content(content).build();
+            }
+
+            @Test
+            @DisplayName("Then the parent is referenced by id without being loaded")
+            void createReply(){
+                Comments parent = Comments.builder().content("parent").build();
+                given(commentsRepository.getReferenceById(7L)).willReturn(parent);
+
+                commentsService.createComment(requestDto, email);
+
+                verify(commentsRepository, never()).findById(any());
+                verify(commentsRepository, times(1)).saveAndFlush(argThat(
+                        comments -> comments.getParentComment() == parent
                 ));
             }
+
+            @Test
+            @DisplayName("Then a parent that does not exist is reported as not found")
+            void createReplyToMissingParent(){
+                given(commentsRepository.saveAndFlush(any())).willThrow(foreignKeyViolation("fk_comments_parent_id"));
+
+                assertThatThrownBy(() -> commentsService.createComment(requestDto, email))
+                        .isInstanceOf(NotFoundResourceException.class)
+                        .hasMessageContaining("Parent comment not found by id: 7");
+            }
+
+            @Test
+            @DisplayName("Then other integrity violations are passed through")
+            void createReplyWithOtherViolation(){
+                DataIntegrityViolationException violation = foreignKeyViolation("comments_content_check");
+                given(commentsRepository.saveAndFlush(any())).willThrow(violation);
+
+                assertThatThrownBy(() -> commentsService.createComment(requestDto, email))
+                        .isSameAs(violation);
+            }
+        }
+
+        private DataIntegrityViolationException foreignKeyViolation(String constraintName){
+            return new DataIntegrityViolationException("could not execute statement",
+                    new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
         }
     }
 
+    @Nested
+    @DisplayName("Given we have a stream of comments to import")
+    class ImportCommentsTest{
+        private InputStream body;
+
+        @BeforeEach
+        void setup(){
+            body = new ByteArrayInputStream("[]".getBytes());
+        }
 
+        @Test
+        @DisplayName("Then the comments are handed to the bulk importer on behalf of the user")
+        void importComments(){
+            Users user = Users.of(UserDto.builder().email("sample@email.com").username("test").build());
+            given(usersRepository.findByEmail("sample@email.com")).willReturn(Optional.of(user));
+            commentsService.importComments("sample@email.com", body, result -> {});
+            verify(bulkImporter, times(1)).importAll(same(body), eq(CommentsRequestDto.class), any(), any());
+        }
 
-}
\ No newline at end of file
+        @Test
+        @DisplayName("Then an unknown user is rejected before reading the stream")
+        void importCommentsByUnknownUser(){
+            given(usersRepository.findByEmail("sample@email.com")).willReturn(Optional.empty());
+            Throwable throwable = catchThrowable(() ->
+                    commentsService.importComments("sample@email.com", body, result -> {}));
+            assertThat(throwable).isInstanceOf(NotFoundResourceException.class);
+            verify(bulkImporter, never()).importAll(any(), any(), any(), any());
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package dev.charles.SimpleBlogAPI.http;
+
+import dev.charles.SimpleBlogAPI.utils.http.ETags;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ETagsTest {
+
+    private static Page<String> page(List<String> content, long total) {
+        return new PageImpl<>(content, PageRequest.of(0, 2), total);
+    }
+
+    @Test
+    @DisplayName("An entity tag is quoted and changes with the version")
+    void ofVersion() {
+        assertThat(ETags.ofVersion("post", 1L, 3L)).isEqualTo("\"post-1-v3\"");
+        assertThat(ETags.ofVersion("post", 1L, null)).isEqualTo("\"post-1-v0\"");
+    }
+
+    @Test
+    @DisplayName("Equal pages get equal tags and any visible change gives a new tag")
+    void ofPage() {
+        String tag = ETags.ofPage(page(List.of("a", "b"), 2), List::of);
+
+        assertThat(ETags.ofPage(page(List.of("a", "b"), 2), List::of)).isEqualTo(tag).startsWith("\"").endsWith("\"");
+        assertThat(ETags.ofPage(page(List.of("a", "c"), 2), List::of)).isNotEqualTo(tag);
+        assertThat(ETags.ofPage(page(List.of("a", "b"), 3), List::of)).isNotEqualTo(tag);
+        assertThat(ETags.ofPage(page(List.of("ab"), 2), List::of)).isNotEqualTo(ETags.ofPage(page(List.of("a", "b"), 2), List::of));
+    }
+
+    @Test
+    @DisplayName("A cursor page tag depends on the next cursor as well as the rows")
+    void ofCursorPage() {
+        String tag = ETags.ofPage(new CursorPage<>(List.of("a"), 1, "next"), List::of);
+
+        assertThat(ETags.ofPage(new CursorPage<>(List.of("a"), 1, "next"), List::of)).isEqualTo(tag);
+        assertThat(ETags.ofPage(new CursorPage<>(List.of("a"), 1, null), List::of)).isNotEqualTo(tag);
+    }
+}
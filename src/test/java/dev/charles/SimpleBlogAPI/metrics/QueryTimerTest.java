@@ -0,0 +1,74 @@
+package dev.charles.SimpleBlogAPI.metrics;
+
+import dev.charles.SimpleBlogAPI.utils.metrics.QueryTimer;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class QueryTimerTest {
+    private SimpleMeterRegistry meterRegistry;
+    private QueryTimer queryTimer;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        queryTimer = new QueryTimer(meterRegistry);
+    }
+
+    @Nested
+    @DisplayName("Given a query phase runs while serving a request")
+    class WithinRequestTest {
+        @BeforeEach
+        void setup() {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/posts/paged");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/posts/paged");
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        }
+
+        @AfterEach
+        void teardown() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        @Test
+        @DisplayName("Then it is timed with the repository, phase, search mode and endpoint")
+        void recordsTaggedTimer() {
+            String result = queryTimer.record("posts", "page", true, () -> "rows");
+
+            assertThat(result).isEqualTo("rows");
+            Timer timer = meterRegistry.get(QueryTimer.METRIC)
+                    .tags("repository", "posts", "phase", "page", "search", "true",
+                            "endpoint", "GET /api/posts/paged", "outcome", "success")
+                    .timer();
+            assertThat(timer.count()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a query phase fails outside of a request")
+    class FailureTest {
+        @Test
+        @DisplayName("Then the failure is timed as an error and rethrown")
+        void recordsError() {
+            Throwable throwable = catchThrowable(() -> queryTimer.record("users", "count", false, () -> {
+                throw new IllegalStateException("boom");
+            }));
+
+            assertThat(throwable).isInstanceOf(IllegalStateException.class);
+            assertThat(meterRegistry.get(QueryTimer.METRIC)
+                    .tags("repository", "users", "phase", "count", "endpoint", "none", "outcome", "error")
+                    .timer().count()).isEqualTo(1);
+        }
+    }
+}
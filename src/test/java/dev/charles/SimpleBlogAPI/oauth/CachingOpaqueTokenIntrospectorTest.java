@@ -0,0 +1,117 @@
+package dev.charles.SimpleBlogAPI.oauth;
+
+import dev.charles.SimpleBlogAPI.utils.security.introspector.CachingOpaqueTokenIntrospector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionAuthenticatedPrincipal;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class CachingOpaqueTokenIntrospectorTest {
+    @Mock
+    private OpaqueTokenIntrospector delegate;
+
+    private CachingOpaqueTokenIntrospector introspector;
+
+    @BeforeEach
+    void setup() {
+        introspector = new CachingOpaqueTokenIntrospector(delegate, 100, Duration.ofMinutes(5));
+    }
+
+    private OAuth2AuthenticatedPrincipal principalExpiringAt(Instant exp) {
+        return new OAuth2IntrospectionAuthenticatedPrincipal(
+                Map.of("email", "sample@email.com", OAuth2TokenIntrospectionClaimNames.EXP, exp), List.of());
+    }
+
+    @Nested
+    @DisplayName("Given the introspection endpoint accepts the token")
+    class ActiveTokenTest {
+        @Test
+        @DisplayName("Then the same token is introspected only once")
+        void cachesPrincipal() {
+            OAuth2AuthenticatedPrincipal principal = principalExpiringAt(Instant.now().plusSeconds(600));
+            given(delegate.introspect("token")).willReturn(principal);
+
+            OAuth2AuthenticatedPrincipal first = introspector.introspect("token");
+            OAuth2AuthenticatedPrincipal second = introspector.introspect("token");
+
+            assertThat(first).isSameAs(principal);
+            assertThat(second).isSameAs(principal);
+            verify(delegate, times(1)).introspect("token");
+            assertThat(introspector.getStats().hitCount()).isEqualTo(1);
+            assertThat(introspector.getStats().missCount()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("Then a request arriving during an in-flight introspection waits for it")
+        void coalescesConcurrentMisses() throws Exception {
+            OAuth2AuthenticatedPrincipal principal = principalExpiringAt(Instant.now().plusSeconds(600));
+            CountDownLatch introspecting = new CountDownLatch(1);
+            CountDownLatch respond = new CountDownLatch(1);
+            given(delegate.introspect("token")).willAnswer(invocation -> {
+                introspecting.countDown();
+                respond.await(5, TimeUnit.SECONDS);
+                return principal;
+            });
+
+            CompletableFuture<OAuth2AuthenticatedPrincipal> first = CompletableFuture.supplyAsync(() -> introspector.introspect("token"));
+            assertThat(introspecting.await(5, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<OAuth2AuthenticatedPrincipal> second = CompletableFuture.supplyAsync(() -> introspector.introspect("token"));
+            respond.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(principal);
+            assertThat(second.get(5, TimeUnit.SECONDS)).isSameAs(principal);
+            verify(delegate, times(1)).introspect("token");
+        }
+
+        @Test
+        @DisplayName("Then a token whose exp claim has passed is introspected again")
+        void doesNotServeExpiredPrincipal() {
+            given(delegate.introspect("token")).willReturn(principalExpiringAt(Instant.now().minusSeconds(1)));
+
+            introspector.introspect("token");
+            introspector.introspect("token");
+
+            verify(delegate, times(2)).introspect("token");
+        }
+    }
+
+    @Nested
+    @DisplayName("Given the introspection endpoint rejects the token")
+    class InactiveTokenTest {
+        @Test
+        @DisplayName("Then the failure is propagated and not cached")
+        void doesNotCacheFailures() {
+            given(delegate.introspect("token")).willThrow(new BadOpaqueTokenException("Provided token isn't active"));
+
+            Throwable first = catchThrowable(() -> introspector.introspect("token"));
+            Throwable second = catchThrowable(() -> introspector.introspect("token"));
+
+            assertThat(first).isInstanceOf(BadOpaqueTokenException.class);
+            assertThat(second).isInstanceOf(BadOpaqueTokenException.class);
+            verify(delegate, times(2)).introspect("token");
+        }
+    }
+}
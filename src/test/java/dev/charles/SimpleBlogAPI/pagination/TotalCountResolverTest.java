@@ -0,0 +1,101 @@
+package dev.charles.SimpleBlogAPI.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.charles.SimpleBlogAPI.utils.pagination.CountMode;
+import dev.charles.SimpleBlogAPI.utils.pagination.CountQuery;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TotalCountResolverTest {
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private TotalCountResolver resolver;
+    private final Pageable pageable = PageRequest.of(0, 10);
+    private final AtomicInteger exactCalls = new AtomicInteger();
+    private final CountQuery query = new CountQuery("posts:|hi",
+            () -> { exactCalls.incrementAndGet(); return 42L; },
+            "SELECT 1 FROM posts p", Map.of());
+
+    @BeforeEach
+    void setup() {
+        resolver = new TotalCountResolver(jdbcTemplate, new ObjectMapper(),
+                CountMode.EXACT, CountMode.FIXED, 10, Duration.ofMinutes(1), 100);
+    }
+
+    @Test
+    @DisplayName("Listings and searches use their own configured modes")
+    void modeFor() {
+        assertThat(resolver.modeFor(false)).isEqualTo(CountMode.EXACT);
+        assertThat(resolver.modeFor(true)).isEqualTo(CountMode.FIXED);
+    }
+
+    @Test
+    @DisplayName("FIXED reports a fixed number of pages without counting")
+    void fixed() {
+        assertThat(resolver.resolve(CountMode.FIXED, pageable, query)).isEqualTo(100);
+        assertThat(exactCalls).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("CACHED counts once per key until the namespace is evicted")
+    void cached() {
+        assertThat(resolver.resolve(CountMode.CACHED, pageable, query)).isEqualTo(42);
+        assertThat(resolver.resolve(CountMode.CACHED, pageable, query)).isEqualTo(42);
+        assertThat(exactCalls).hasValue(1);
+
+        resolver.evict("posts");
+        resolver.resolve(CountMode.CACHED, pageable, query);
+        assertThat(exactCalls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("CACHED keeps the count until the evicting transaction commits")
+    void cachedEvictsAfterCommit() {
+        resolver.resolve(CountMode.CACHED, pageable, query);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            resolver.evictAfterCommit("posts");
+            resolver.resolve(CountMode.CACHED, pageable, query);
+            assertThat(exactCalls).hasValue(1);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+        finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        resolver.resolve(CountMode.CACHED, pageable, query);
+        assertThat(exactCalls).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("ESTIMATED reads the planner row estimate")
+    void estimated() {
+        given(jdbcTemplate.queryForObject(startsWith("EXPLAIN (FORMAT JSON) "), anyMap(), eq(String.class)))
+                .willReturn("[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Plan Rows\": 1234}}]");
+
+        assertThat(resolver.resolve(CountMode.ESTIMATED, pageable, query)).isEqualTo(1234);
+        assertThat(exactCalls).hasValue(0);
+    }
+}
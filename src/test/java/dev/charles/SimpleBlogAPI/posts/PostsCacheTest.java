@@ -0,0 +1,114 @@
+package dev.charles.SimpleBlogAPI.posts;
+
+import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSnapshot;
+import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
+import dev.charles.SimpleBlogAPI.posts.service.PostsCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class PostsCacheTest {
+    @Mock
+    private PostsRepository postsRepository;
+
+    private PostsCache postsCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        postsCache = new PostsCache(postsRepository, meterRegistry, 1024 * 1024, Duration.ofMinutes(10));
+    }
+
+    private void givenPostAtVersion3() {
+        given(postsRepository.findById(1L, PostSnapshot.class))
+                .willReturn(Optional.of(new PostSnapshot(3L, "title", "content")));
+    }
+
+    @Nested
+    @DisplayName("Given a post is read twice")
+    class ReadThroughTest {
+        @Test
+        @DisplayName("Then it is loaded once and the hit is recorded")
+        void cachesPost() {
+            givenPostAtVersion3();
+            Optional<PostDto> first = postsCache.find(1L);
+            Optional<PostDto> second = postsCache.find(1L);
+
+            assertThat(first).get().extracting(PostDto::getTitle).isEqualTo("title");
+            assertThat(second).get().extracting(PostDto::getContent).isEqualTo("content");
+            verify(postsRepository, times(1)).findById(1L, PostSnapshot.class);
+            assertThat(meterRegistry.get("cache.hit.ratio").tag("cache", "posts").gauge().value()).isEqualTo(0.5);
+        }
+
+        @Test
+        @DisplayName("Then a missing post is not cached")
+        void doesNotCacheMissingPost() {
+            given(postsRepository.findById(2L, PostSnapshot.class)).willReturn(Optional.empty());
+
+            assertThat(postsCache.find(2L)).isEmpty();
+            assertThat(postsCache.find(2L)).isEmpty();
+            verify(postsRepository, times(2)).findById(2L, PostSnapshot.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a cached post is written inside a transaction")
+    class EvictionTest {
+        @BeforeEach
+        void setup() {
+            givenPostAtVersion3();
+            postsCache.find(1L);
+            TransactionSynchronizationManager.initSynchronization();
+        }
+
+        @AfterEach
+        void teardown() {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        private void commit() {
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        }
+
+        @Test
+        @DisplayName("Then the entry survives until the transaction commits")
+        void evictsAfterCommit() {
+            postsCache.evictAfterCommit(1L, () -> 4L);
+            postsCache.find(1L);
+            verify(postsRepository, times(1)).findById(1L, PostSnapshot.class);
+
+            commit();
+            postsCache.find(1L);
+            verify(postsRepository, times(2)).findById(1L, PostSnapshot.class);
+        }
+
+        @Test
+        @DisplayName("Then an entry newer than the committed version is kept")
+        void keepsNewerVersion() {
+            postsCache.evictAfterCommit(1L, () -> 2L);
+            commit();
+
+            postsCache.find(1L);
+            verify(postsRepository, times(1)).findById(1L, PostSnapshot.class);
+        }
+    }
+}
@@ -2,7 +2,11 @@ package dev.charles.SimpleBlogAPI.posts;
 
 import dev.charles.SimpleBlogAPI.AbstractIntegrationTest;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSnapshot;
 import dev.charles.SimpleBlogAPI.posts.service.PostsService;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkItemResult;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,16 +16,19 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 import org.testcontainers.shaded.com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.opaqueToken;
@@ -110,15 +117,31 @@ class PostsControllerTest extends AbstractIntegrationTest {
     @Test
     void getPost() throws Exception {
         //given
-        given(postsService.getPostById(1L)).willReturn(postDto);
+        given(postsService.getPostSnapshot(1L)).willReturn(new PostSnapshot(3L, "test1", "content"));
         //when, then
         mockMvc.perform(get("/api/posts")
                         .contentType(MediaType.APPLICATION_JSON)
                         .param("id","1")
                 )
                 .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"post-1-v3\""))
                 .andExpect(content().string(objectMapper.writeValueAsString(postDto)));
-        verify(postsService, times(1)).getPostById(1L);
+        verify(postsService, times(1)).getPostSnapshot(1L);
+    }
+
+    @Test
+    void getPostNotModified() throws Exception {
+        //given
+        given(postsService.getPostSnapshot(1L)).willReturn(new PostSnapshot(3L, "test1", "content"));
+        //when, then
+        mockMvc.perform(get("/api/posts")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", "\"post-1-v3\"")
+                        .param("id","1")
+                )
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"post-1-v3\""))
+                .andExpect(content().string(""));
     }
 
     @Test
@@ -133,7 +156,7 @@ class PostsControllerTest extends AbstractIntegrationTest {
             list.add(tempDto);
         }
         Page<PostDto> result = new PageImpl<>(list, PageRequest.of(0,5),5);
-        given(postsService.getAllPosts(eq(false), any(), any())).willReturn(result);
+        given(postsService.getAllPosts(eq(false), any(), any(), any())).willReturn(result);
         //when, then
         mockMvc.perform(get("/api/posts/paged")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -149,6 +172,40 @@ class PostsControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.page.totalPages").value(1));
     }
 
+    @Test
+    void getPostsByKeywordNotModified() throws Exception {
+        //given
+        Page<PostDto> result = new PageImpl<>(List.of(postDto), PageRequest.of(0,10),1);
+        given(postsService.getAllPosts(eq(false), any(), any(), any())).willReturn(result);
+        String etag = mockMvc.perform(get("/api/posts/paged")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        //when, then
+        mockMvc.perform(get("/api/posts/paged")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void searchPosts() throws Exception {
+        //given
+        List<PostSearchResultDto> hits = List.of(new PostSearchResultDto(1L, "Rust", "<b>Rust</b> ownership", 0.5));
+        given(postsService.searchPosts("rust", null, 0)).willReturn(new PageImpl<>(hits, PageRequest.of(0,10), 1));
+        //when, then
+        mockMvc.perform(get("/api/posts/search")
+                .contentType(MediaType.APPLICATION_JSON)
+                .param("keyword", "rust")
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(1))
+                .andExpect(jsonPath("$.content[0].snippet").value("<b>Rust</b> ownership"))
+                .andExpect(jsonPath("$.content[0].score").value(0.5))
+                .andExpect(jsonPath("$.page.totalElements").value(1));
+    }
+
     @Test
     void getPostsByKeywordAndEmail() throws Exception{
         //given
@@ -161,7 +218,7 @@ class PostsControllerTest extends AbstractIntegrationTest {
             list.add(tempDto);
         }
         Page<PostDto> result = new PageImpl<>(list, PageRequest.of(0,5),5);
-        given(postsService.getAllPostsByUser(eq(false), any(), any(), any())).willReturn(result);
+        given(postsService.getAllPostsByUser(eq(false), any(), any(), any(), any())).willReturn(result);
         //when, then
         mockMvc.perform(get("/api/posts/paged/user")
                         .param("isSearchMode", "false")
@@ -177,4 +234,75 @@ class PostsControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.page.totalElements").value(5))
                 .andExpect(jsonPath("$.page.totalPages").value(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPostsByKeywordAfterCursor() throws Exception {
+        //given
+        CursorPage<PostDto> result = new CursorPage<>(List.of(postDto), 10, "NDI");
+        given(postsService.getAllPostsAfter("hi", null, "")).willReturn(result);
+        //when, then
+        mockMvc.perform(get("/api/posts/paged")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .param("keyword", "hi")
+                        .param("after", "")
+                )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("NDI"))
+                .andExpect(jsonPath("$.hasNext").value(true));
+        verify(postsService, times(1)).getAllPostsAfter("hi", null, "");
+    }
+
+    @Test
+    void bulkImport() throws Exception {
+        //given
+        willAnswer(invocation -> {
+            Consumer<BulkItemResult> report = invocation.getArgument(2);
+            report.accept(BulkItemResult.created(0, 1L));
+            report.accept(BulkItemResult.invalid(1, "title: Input title"));
+            return null;
+        }).given(postsService).importPosts(eq("sample@email.com"), any(), any());
+        String body = "{\"title\":\"t\",\"content\":\"c\"}\n{\"content\":\"c\"}\n";
+        //when
+        MvcResult started = mockMvc.perform(post("/api/posts/bulk")
+                        .with(opaqueToken()
+                                .attributes(attrs -> attrs.put("email", "sample@email.com")))
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body)
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"index\":0,\"status\":\"CREATED\",\"id\":1}\n"
+                        + "{\"index\":1,\"status\":\"INVALID\",\"error\":\"title: Input title\"}\n"));
+        verify(postsService, times(1)).importPosts(eq("sample@email.com"), any(), any());
+    }
+
+    @Test
+    void exportPostsByEmail() throws Exception {
+        //given
+        willAnswer(invocation -> {
+            Consumer<PostDto> sink = invocation.getArgument(1);
+            sink.accept(postDto);
+            sink.accept(postDto);
+            return null;
+        }).given(postsService).exportPostsByUser(eq("sample@email.com"), any());
+        //when
+        MvcResult started = mockMvc.perform(get("/api/posts/export")
+                        .param("email", "sample@email.com")
+                )
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"title\":\"test1\",\"content\":\"content\"}\n"
+                        + "{\"title\":\"test1\",\"content\":\"content\"}\n"));
+    }
+}
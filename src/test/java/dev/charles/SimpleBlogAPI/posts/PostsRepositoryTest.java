@@ -2,11 +2,15 @@ package dev.charles.SimpleBlogAPI.posts;
 
 import dev.charles.SimpleBlogAPI.AbstractIntegrationTest;
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
+import dev.charles.SimpleBlogAPI.posts.domain.SearchLanguage;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
 import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
 
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -15,9 +19,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.SoftAssertions.assertSoftly;
@@ -103,6 +110,24 @@ public class PostsRepositoryTest extends AbstractIntegrationTest {
 
         }
         @Nested
+        @DisplayName("When access postsRepository with email as a stream")
+        class accessWithStream{
+            @Test
+            @Transactional(readOnly = true)
+            @DisplayName("Then you can stream every post of the user, newest first")
+            void streamAllByEmailTest(){
+                //when
+                List<PostDto> result;
+                try (Stream<PostDto> stream = postsRepository.streamAllByEmail("hi@email.com")) {
+                    result = stream.toList();
+                }
+                //then
+                assertThat(result)
+                        .extracting(PostDto::getTitle)
+                        .containsExactly("post4", "post2", "post0");
+            }
+        }
+        @Nested
         @DisplayName("When access postsRepository with PostDto")
         class accessWithPostDto{
             @BeforeEach
@@ -234,6 +259,113 @@ public class PostsRepositoryTest extends AbstractIntegrationTest {
             }
         }
 
+        @Nested
+        @DisplayName("When we search with relevance ranking")
+        class RankedSearch{
+            @Test
+            @DisplayName("Then every hit carries a score and a highlighted snippet")
+            void searchRankedTest(){
+                Page<PostSearchResultDto> page = postsRepository.searchRanked("ownership", PageRequest.of(0, pageSize));
+                assertThat(page.getContent()).hasSize(pageSize);
+                assertThat(page.getContent()).allSatisfy(hit -> {
+                    assertThat(hit.getScore()).isPositive();
+                    assertThat(hit.getTitle()).contains("Ownership");
+                    assertThat(hit.getSnippet()).isNotNull();
+                });
+            }
+
+            @Test
+            @DisplayName("Then a post matching in its title ranks above one matching only in its content")
+            void titleOutranksContentTest(){
+                Users user = usersRepository.findByEmail("sample@email.com").orElseThrow();
+                Posts contentOnly = Posts.of(PostDto.builder().title("Weekly notes").content("A word on telescopes").build());
+                Posts titled = Posts.of(PostDto.builder().title("Telescopes for beginners").content("none").build());
+                contentOnly.setUser(user);
+                titled.setUser(user);
+                postsRepository.saveAll(List.of(contentOnly, titled));
+
+                Page<PostSearchResultDto> page = postsRepository.searchRanked("telescopes", PageRequest.of(0, pageSize));
+                assertThat(page.getContent()).extracting(PostSearchResultDto::getTitle)
+                        .containsExactly("Telescopes for beginners", "Weekly notes");
+                assertThat(page.getContent().get(1).getSnippet()).contains("<b>telescopes</b>");
+            }
+
+            @Test
+            @DisplayName("Then markup in the content is escaped in the snippet")
+            void escapesSnippetTest(){
+                Users user = usersRepository.findByEmail("sample@email.com").orElseThrow();
+                Posts post = Posts.of(PostDto.builder().title("Stargazing").content("<img src=x onerror=alert(1)> telescopes").build());
+                post.setUser(user);
+                postsRepository.save(post);
+
+                Page<PostSearchResultDto> page = postsRepository.searchRanked("telescopes", PageRequest.of(0, pageSize));
+                assertThat(page.getContent()).singleElement()
+                        .extracting(PostSearchResultDto::getSnippet).asString()
+                        .contains("&lt;img", "<b>telescopes</b>")
+                        .doesNotContain("<img");
+            }
+
+            @Test
+            @DisplayName("Then a page past the last hit keeps the requested page and the total")
+            void pastLastPageTest(){
+                Page<PostSearchResultDto> page = postsRepository.searchRanked("ownership", PageRequest.of(50, pageSize));
+                assertThat(page.getContent()).isEmpty();
+                assertThat(page.getNumber()).isEqualTo(50);
+                assertThat(page.getSize()).isEqualTo(pageSize);
+            }
+        }
+
+        @Nested
+        @DisplayName("When we search posts written in Korean")
+        class KoreanSearch{
+            @BeforeEach
+            void setup(){
+                Users user = usersRepository.findByEmail("sample@email.com").orElseThrow();
+                Posts korean = Posts.of(PostDto.builder().title("스프링 블로그를 만들었어요").content("가상 스레드 적용기").build());
+                korean.setUser(user);
+                postsRepository.save(korean);
+            }
+
+            @Test
+            @DisplayName("Then a word is found even when a particle is attached to it")
+            void findsWordWithParticle(){
+                CursorPage<PostDto> page = postsRepository.findAllByKeywordAfter("블로그", null, pageSize);
+                assertThat(page.getContent()).extracting(PostDto::getTitle).containsExactly("스프링 블로그를 만들었어요");
+            }
+
+            @Test
+            @DisplayName("Then an English search does not see the Korean post")
+            void englishSearchSkipsKoreanPosts(){
+                CursorPage<PostDto> page = postsRepository.findAllByKeywordAfter("블로그", SearchLanguage.ENGLISH, null, pageSize);
+                assertThat(page.getContent()).isEmpty();
+            }
+        }
+
+        @Nested
+        @DisplayName("When we walk a keyset listing with the returned cursors")
+        class KeysetMode{
+            @ParameterizedTest
+            @CsvSource({", , 50", "the Rise, , 10", ", sample@email.com, 25", "the Rise, sample2@email.com, 5"})
+            @DisplayName("Then you can visit every matching post exactly once")
+            void walkAllPages(String keyword, String email, int expectedTotal){
+                List<PostDto> visited = new ArrayList<>();
+                String cursor = "";
+                int pages = 0;
+                do {
+                    Long after = Cursors.decodeId(cursor);
+                    CursorPage<PostDto> page = email == null
+                            ? postsRepository.findAllByKeywordAfter(keyword, after, pageSize)
+                            : postsRepository.findAllByKeywordAndEmailAfter(keyword, email, after, pageSize);
+                    assertThat(page.getContent()).hasSizeLessThanOrEqualTo(pageSize);
+                    visited.addAll(page.getContent());
+                    cursor = page.getNextCursor();
+                    pages++;
+                } while (cursor != null);
+                assertThat(visited).hasSize(expectedTotal);
+                assertThat(pages).isEqualTo(Math.max(1, (expectedTotal + pageSize - 1) / pageSize));
+            }
+        }
+
     }
 
 
@@ -1,31 +1,52 @@
 package dev.charles.SimpleBlogAPI.posts;
 
+import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
 import dev.charles.SimpleBlogAPI.posts.domain.Posts;
+import dev.charles.SimpleBlogAPI.posts.domain.SearchLanguage;
 import dev.charles.SimpleBlogAPI.posts.dto.PostDto;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSnapshot;
+import dev.charles.SimpleBlogAPI.posts.dto.PostSearchResultDto;
 import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
+import dev.charles.SimpleBlogAPI.posts.service.PostsCache;
 import dev.charles.SimpleBlogAPI.posts.service.PostsService;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.utils.bulk.BulkImporter;
+import dev.charles.SimpleBlogAPI.utils.pagination.CursorPage;
+import dev.charles.SimpleBlogAPI.utils.pagination.Cursors;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -35,6 +56,12 @@ public class PostsServiceTest {
     private PostsRepository postsRepository;
     @Mock
     private UsersRepository usersRepository;
+    @Mock
+    private TotalCountResolver totalCounts;
+    @Mock
+    private BulkImporter bulkImporter;
+    @Mock
+    private PostsCache postsCache;
 
     @InjectMocks
     private PostsService postsService;
@@ -66,7 +93,44 @@ public class PostsServiceTest {
 
         //then
         verify(usersRepository, times(1)).findByEmail(any());
-        verify(postsRepository, times(1)).save(any());
+        verify(postsRepository, times(1)).saveAndFlush(any());
+        verify(totalCounts, times(1)).evictAfterCommit("posts");
+    }
+
+    @Test
+    void createPostForDeletedUser() {
+        //given
+        given(usersRepository.findByEmail(any())).willReturn(Optional.of(user));
+        given(postsRepository.saveAndFlush(any())).willThrow(new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), "fk_posts_created_by_id")));
+        //when, then
+        assertThatThrownBy(() -> postsService.createPost("email@gmail.com", postDto))
+                .isInstanceOf(NotFoundResourceException.class);
+        verify(totalCounts, never()).evictAfterCommit("posts");
+    }
+
+    @Test
+    void importPosts() {
+        //given
+        given(usersRepository.findByEmail("email@gmail.com")).willReturn(Optional.of(user));
+        InputStream body = new ByteArrayInputStream("[]".getBytes());
+        //when
+        postsService.importPosts("email@gmail.com", body, result -> {});
+
+        //then
+        verify(bulkImporter, times(1)).importAll(same(body), eq(PostDto.class), any(), any());
+        verify(totalCounts, times(1)).evict("posts");
+    }
+
+    @Test
+    void importPostsByUnknownUser() {
+        //given
+        given(usersRepository.findByEmail("email@gmail.com")).willReturn(Optional.empty());
+        InputStream body = new ByteArrayInputStream("[]".getBytes());
+        //when, then
+        assertThrows(NotFoundResourceException.class,
+                () -> postsService.importPosts("email@gmail.com", body, result -> {}));
+        verify(bulkImporter, never()).importAll(any(), any(), any(), any());
     }
 
     @Test
@@ -82,18 +146,35 @@ public class PostsServiceTest {
                                     .build();
             dtoList.add(temp);
         }
-        given(postsRepository.findAllByKeyword( true, keyword,  pageable)).willReturn(givenResult);
+        given(postsRepository.findAllByKeyword( true, keyword, SearchLanguage.ENGLISH,  pageable)).willReturn(givenResult);
 
         //when
-        Page<PostDto> result = postsService.getAllPosts(true, keyword, 0);
+        Page<PostDto> result = postsService.getAllPosts(true, keyword, null, 0);
 
         //then
 
-        verify(postsRepository, times(1)).findAllByKeyword(true, keyword, pageable);
+        verify(postsRepository, times(1)).findAllByKeyword(true, keyword, SearchLanguage.ENGLISH, pageable);
 
         assertThat(result).isEqualTo(givenResult);
     }
 
+    @Test
+    void searchPosts() {
+        //given
+        String keyword = "rust";
+        Pageable pageable = PageRequest.of(0,10);
+        List<PostSearchResultDto> hits = List.of(new PostSearchResultDto(1L, "Rust", "<b>Rust</b> ownership", 0.5));
+        Page<PostSearchResultDto> givenResult = new PageImpl<>(hits, pageable, 1);
+        given(postsRepository.searchRanked(keyword, SearchLanguage.ENGLISH, pageable)).willReturn(givenResult);
+
+        //when
+        Page<PostSearchResultDto> result = postsService.searchPosts(keyword, "en", 0);
+
+        //then
+        verify(postsRepository, times(1)).searchRanked(keyword, SearchLanguage.ENGLISH, pageable);
+        assertThat(result).isEqualTo(givenResult);
+    }
+
     @Test
     void getAllPostsByKeywordAndUser() {
         //given
@@ -112,23 +193,63 @@ public class PostsServiceTest {
         }
 
         Page<PostDto> givenResult = new PageImpl<>(dtoList, pageable, total);
-        given(postsRepository.findAllByKeywordAndEmail(false, keyword, email, pageable) ).willReturn(givenResult);
+        given(postsRepository.findAllByKeywordAndEmail(false, keyword, email, SearchLanguage.ENGLISH, pageable) ).willReturn(givenResult);
 
         //when
-        Page<PostDto> result = postsService.getAllPostsByUser(false, email, keyword, 0);
+        Page<PostDto> result = postsService.getAllPostsByUser(false, email, keyword, null, 0);
 
         //then
-        verify(postsRepository, times(1)).findAllByKeywordAndEmail(false, keyword, email, pageable) ;
+        verify(postsRepository, times(1)).findAllByKeywordAndEmail(false, keyword, email, SearchLanguage.ENGLISH, pageable) ;
 
         result.forEach(
                 t -> assertThat(t).isIn(dtoList)
         );
     }
 
+    @Test
+    void exportPostsByUser() {
+        //given
+        AtomicBoolean closed = new AtomicBoolean();
+        given(postsRepository.streamAllByEmail("sample@email.com"))
+                .willReturn(Stream.of(postDto, postDto).onClose(() -> closed.set(true)));
+        List<PostDto> exported = new ArrayList<>();
+
+        //when
+        postsService.exportPostsByUser("sample@email.com", exported::add);
+
+        //then
+        assertThat(exported).hasSize(2);
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void getAllPostsAfterCursor() {
+        //given
+        String keyword = "hi";
+        CursorPage<PostDto> givenResult = new CursorPage<>(List.of(postDto), 10, null);
+        given(postsRepository.findAllByKeywordAfter(keyword, SearchLanguage.ENGLISH, 42L, 10)).willReturn(givenResult);
+
+        //when
+        CursorPage<PostDto> result = postsService.getAllPostsAfter(keyword, null, Cursors.encodeId(42L));
+
+        //then
+        verify(postsRepository, times(1)).findAllByKeywordAfter(keyword, SearchLanguage.ENGLISH, 42L, 10);
+        assertThat(result).isEqualTo(givenResult);
+    }
+
+    @Test
+    void getAllPostsFromFirstCursor() {
+        //when
+        postsService.getAllPostsByUserAfter("sample@email.com", "hi", "ko", "");
+
+        //then
+        verify(postsRepository, times(1)).findAllByKeywordAndEmailAfter("hi", "sample@email.com", SearchLanguage.CJK, null, 10);
+    }
+
     @Test
     void getPostById() {
         //given
-        given(postsRepository.findById(any(), any())).willReturn(Optional.of(postDto));
+        given(postsCache.find(1L)).willReturn(Optional.of(postDto));
         //when
         PostDto result = postsService.getPostById(1L);
         //then
@@ -136,7 +257,19 @@ public class PostsServiceTest {
                 ()-> assertThat(result.getTitle()).isEqualTo(post.getTitle()),
                 ()-> assertThat(result.getContent()).isEqualTo(post.getContent())
         );
-        verify(postsRepository, times(1)).findById(any(), any());
+        verify(postsCache, times(1)).find(1L);
+    }
+
+    @Test
+    void getPostSnapshot() {
+        //given
+        PostSnapshot snapshot = new PostSnapshot(3L, "title", "content");
+        given(postsCache.findSnapshot(1L)).willReturn(Optional.of(snapshot));
+        //when
+        PostSnapshot result = postsService.getPostSnapshot(1L);
+        //then
+        assertThat(result.version()).isEqualTo(3L);
+        verify(postsCache, times(1)).findSnapshot(1L);
     }
 
     @Test
@@ -156,6 +289,7 @@ public class PostsServiceTest {
                 ()-> assertThat(post.getContent()).isEqualTo(newDto.getContent())
         );
         verify(postsRepository, times(1)).findById(any());
+        verify(postsCache, times(1)).evictAfterCommit(eq(1L), any(LongSupplier.class));
     }
 
     @Test
@@ -163,6 +297,8 @@ public class PostsServiceTest {
         // when
         postsService.deletePost(1L);
         // then
-        verify(postsRepository, times(1)).deleteById(any());
+        verify(postsRepository, times(1)).bulkDeleteById(1L);
+        verify(postsRepository, never()).deleteById(any());
+        verify(postsCache, times(1)).evictAfterCommit(1L);
     }
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package dev.charles.SimpleBlogAPI.posts;
+
+import dev.charles.SimpleBlogAPI.posts.domain.SearchLanguage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchLanguageTest {
+
+    @Nested
+    @DisplayName("Given a text without a language")
+    class DetectTest {
+        @ParameterizedTest
+        @CsvSource({"Mastering Concurrency in Java, ENGLISH", "스프링 블로그를 만들었어요, CJK", "Spring 入門, CJK", "カタカナ, CJK", "'', ENGLISH"})
+        @DisplayName("Then the configuration is detected from its script")
+        void detectsFromScript(String text, SearchLanguage expected) {
+            assertThat(SearchLanguage.detect(text)).isEqualTo(expected);
+        }
+    }
+
+    @Nested
+    @DisplayName("Given a lang request parameter")
+    class ResolveTest {
+        @ParameterizedTest
+        @CsvSource({"en, 블로그, ENGLISH", "KO, blog, CJK", "ja, blog, CJK", ", 블로그, CJK", ", blog, ENGLISH"})
+        @DisplayName("Then it wins over detection, and a missing one falls back to the keyword")
+        void resolvesParameterFirst(String lang, String keyword, SearchLanguage expected) {
+            assertThat(SearchLanguage.resolve(lang, keyword)).isEqualTo(expected);
+        }
+
+        @Test
+        @DisplayName("Then an unknown language is rejected")
+        void rejectsUnknownLanguage() {
+            assertThatThrownBy(() -> SearchLanguage.resolve("xx", "blog"))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package dev.charles.SimpleBlogAPI.search;
+
+import dev.charles.SimpleBlogAPI.utils.search.Headlines;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeadlinesTest {
+
+    @Test
+    @DisplayName("Matched terms are bolded and the content around them is escaped")
+    void toHtml() {
+        String headline = "<script>alert(1)</script> about \uE000telescopes\uE001 & stars";
+
+        assertThat(Headlines.toHtml(headline))
+                .isEqualTo("&lt;script&gt;alert(1)&lt;/script&gt; about <b>telescopes</b> &amp; stars");
+    }
+
+    @Test
+    @DisplayName("A post without a headline has no snippet")
+    void toHtmlOfNull() {
+        assertThat(Headlines.toHtml(null)).isNull();
+    }
+}
@@ -0,0 +1,82 @@
+package dev.charles.SimpleBlogAPI.users;
+
+import dev.charles.SimpleBlogAPI.users.dto.AuthorSnapshot;
+import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.users.service.AuthorCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AuthorCacheTest {
+    @Mock
+    private UsersRepository usersRepository;
+
+    private AuthorCache authorCache;
+    private final AuthorSnapshot mike = new AuthorSnapshot(0L, "mike@gmail.com", "mike");
+    private final AuthorSnapshot jane = new AuthorSnapshot(0L, "jane@gmail.com", "jane");
+
+    @BeforeEach
+    void setup() {
+        authorCache = new AuthorCache(usersRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Then only the missing authors are loaded, with one batch query")
+    void loadsMissesInOneBatch() {
+        given(usersRepository.findAuthorsByIds(Set.of(1L))).willReturn(Map.of(1L, mike));
+        given(usersRepository.findAuthorsByIds(Set.of(2L))).willReturn(Map.of(2L, jane));
+
+        authorCache.getAll(List.of(1L));
+        Map<Long, UserDto> authors = authorCache.getAll(List.of(1L, 2L));
+
+        assertThat(authors).containsOnlyKeys(1L, 2L);
+        assertThat(authors.get(2L).getUsername()).isEqualTo("jane");
+        verify(usersRepository, times(1)).findAuthorsByIds(Set.of(1L));
+        verify(usersRepository, times(1)).findAuthorsByIds(Set.of(2L));
+    }
+
+    @Test
+    @DisplayName("Then an evicted author is loaded again")
+    void reloadsEvictedAuthor() {
+        given(usersRepository.findAuthorsByIds(Set.of(1L))).willReturn(Map.of(1L, mike));
+
+        authorCache.getAll(List.of(1L));
+        authorCache.evictAfterCommit(1L);
+        authorCache.getAll(List.of(1L));
+
+        verify(usersRepository, times(2)).findAuthorsByIds(Set.of(1L));
+    }
+
+    @Test
+    @DisplayName("Then a row read before the rename committed is served but not cached again")
+    void doesNotRecacheReplacedRow() {
+        AuthorSnapshot renamed = new AuthorSnapshot(1L, "mike@gmail.com", "mike2");
+        given(usersRepository.findAuthorsByIds(Set.of(1L))).willReturn(Map.of(1L, mike), Map.of(1L, renamed));
+
+        authorCache.evictAfterCommit(1L, () -> 1L);
+        Map<Long, UserDto> stale = authorCache.getAll(List.of(1L));
+        Map<Long, UserDto> fresh = authorCache.getAll(List.of(1L));
+        Map<Long, UserDto> cached = authorCache.getAll(List.of(1L));
+
+        assertThat(stale.get(1L).getUsername()).isEqualTo("mike");
+        assertThat(fresh.get(1L).getUsername()).isEqualTo("mike2");
+        assertThat(cached.get(1L).getUsername()).isEqualTo("mike2");
+        verify(usersRepository, times(2)).findAuthorsByIds(Set.of(1L));
+    }
+}
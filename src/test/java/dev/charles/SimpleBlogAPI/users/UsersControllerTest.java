@@ -4,6 +4,7 @@ import dev.charles.SimpleBlogAPI.AbstractIntegrationTest;
 import dev.charles.SimpleBlogAPI.errors.errorcode.CommonErrorCode;
 import dev.charles.SimpleBlogAPI.errors.errorcode.ErrorCode;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
 import dev.charles.SimpleBlogAPI.users.service.UsersService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -105,6 +106,24 @@ class UsersControllerTest extends AbstractIntegrationTest {
     }
 
 
+    @Test
+    @DisplayName("When invoking GET /api/users/stats, the response status is 200 OK and the body contains the user's totals.")
+    void get_user_stats() throws Exception {
+        UserStatsDto stats = UserStatsDto.builder()
+                .email(targetEmail).username("tester").postCount(2).commentCount(7).build();
+        given(usersService.getUserStats(targetEmail)).willReturn(stats);
+
+        mockMvc.perform(get("/api/users/stats").with(opaqueToken())
+                        .param("email", targetEmail)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value(targetEmail))
+                .andExpect(jsonPath("$.postCount").value(2))
+                .andExpect(jsonPath("$.commentCount").value(7));
+        verify(usersService, times(1)).getUserStats(targetEmail);
+    }
+
     @Test
     @DisplayName("When invoking GET /api/users/paged, the response status is 200 OK and the response body contains the paged user list.")
     void get_paged_users_by_offset() throws Exception {
@@ -121,7 +140,7 @@ class UsersControllerTest extends AbstractIntegrationTest {
         params.add("offset", "0");
         params.add("isSearchMode", "false");
         params.add("keyword", "test");
-        given(usersService.getUsers( false, "test", offset))
+        given(usersService.getUsers( false, "test", 0.3, offset))
                 .willReturn(mockPage);
 
         // When & Then
@@ -134,7 +153,7 @@ class UsersControllerTest extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$.page.totalElements").value(10)); // 페이징 메타데이터 검증
 
         // Service 호출 검증 (offset=1로 호출되었는지)
-        then(usersService).should().getUsers(false, "test", offset);
+        then(usersService).should().getUsers(false, "test", 0.3, offset);
     }
 
     @Nested
@@ -1,9 +1,17 @@
 package dev.charles.SimpleBlogAPI.users;
 
 import dev.charles.SimpleBlogAPI.AbstractIntegrationTest;
+import dev.charles.SimpleBlogAPI.comments.domain.Comments;
+import dev.charles.SimpleBlogAPI.comments.repository.CommentsRepository;
+import dev.charles.SimpleBlogAPI.posts.domain.Posts;
+import dev.charles.SimpleBlogAPI.posts.repository.PostsRepository;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -13,12 +21,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.annotation.Transactional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class UsersRepositoryTest extends AbstractIntegrationTest {
     @Autowired
     private UsersRepository usersRepository;
+    @Autowired
+    private PostsRepository postsRepository;
+    @Autowired
+    private CommentsRepository commentsRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     private Users user1;
     private Users user2;
@@ -57,6 +72,53 @@ public class UsersRepositoryTest extends AbstractIntegrationTest {
         assertThat(foundUser.getUsername()).isEqualTo("user1");
     }
 
+    @Test
+    @DisplayName("User stats count posts and comments written by the user")
+    void findStatsByEmail_shouldCountPostsAndComments() {
+        Posts post = new Posts("title", "content");
+        post.setUser(user1);
+        postsRepository.save(post);
+        commentsRepository.save(new Comments(post, user1, "mine", null));
+        commentsRepository.save(new Comments(post, user2, "theirs", null));
+
+        UserStatsDto author = usersRepository.findStatsByEmail("test1@email.com").orElseThrow();
+        UserStatsDto commenter = usersRepository.findStatsByEmail("test2@email.com").orElseThrow();
+
+        assertThat(author.getPostCount()).isEqualTo(1);
+        assertThat(author.getCommentCount()).isEqualTo(1);
+        assertThat(author.getLastActiveAt()).isNotNull();
+        assertThat(commenter.getPostCount()).isZero();
+        assertThat(commenter.getCommentCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("User stats drop the comments removed with a deleted post")
+    void findStatsByEmail_shouldFollowCascadedDeletes() {
+        Posts post = new Posts("title", "content");
+        post.setUser(user1);
+        postsRepository.save(post);
+        commentsRepository.save(new Comments(post, user2, "theirs", null));
+
+        postsRepository.deleteById(post.getId());
+
+        UserStatsDto author = usersRepository.findStatsByEmail("test1@email.com").orElseThrow();
+        UserStatsDto commenter = usersRepository.findStatsByEmail("test2@email.com").orElseThrow();
+        assertThat(author.getPostCount()).isZero();
+        assertThat(commenter.getCommentCount()).isZero();
+        assertThat(commenter.getLastActiveAt()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("User stats of a user without posts or comments are zero")
+    void findStatsByEmail_shouldReturnZerosForInactiveUser() {
+        UserStatsDto stats = usersRepository.findStatsByEmail("test1@email.com").orElseThrow();
+
+        assertThat(stats.getPostCount()).isZero();
+        assertThat(stats.getCommentCount()).isZero();
+        assertThat(stats.getLastActiveAt()).isNull();
+        assertThat(usersRepository.findStatsByEmail("nobody@email.com")).isEmpty();
+    }
+
     @ParameterizedTest
     @CsvSource({"false, user, 2", "true, user, 100", "true, usdsdder, 0"})
     @DisplayName("Get pagination of users that is sorted by creation date descending (newest first)")
@@ -69,6 +131,64 @@ public class UsersRepositoryTest extends AbstractIntegrationTest {
         assertThat(userPage.getTotalElements()).isEqualTo(expectedTotal);
     }
 
+    @Test
+    @Transactional(readOnly = true)
+    @DisplayName("Search finds a misspelled username by trigram similarity")
+    void findAllByKeyword_shouldMatchBySimilarity() {
+        Page<UserDto> userPage = usersRepository.findAllByKeyword(false, "usr2", PageRequest.of(0, 10));
+
+        assertThat(userPage.getContent()).extracting(UserDto::getUsername).containsExactly("user2");
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    @DisplayName("Search ranks the most similar username first and honours the minimum similarity")
+    void findAllByKeyword_shouldRankByRelevance() {
+        Page<UserDto> userPage = usersRepository.findAllByKeyword(false, "usr2", 0.1, PageRequest.of(0, 10));
+
+        assertThat(userPage.getContent()).extracting(UserDto::getUsername).containsExactly("user2", "user1");
+    }
+
+    @Test
+    @DisplayName("A repeated lookup by email is served from the natural id cache without SQL")
+    void findByEmail_shouldHitNaturalIdCache() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        usersRepository.findByEmail("test1@email.com").orElseThrow();
+        statistics.clear();
+
+        Users foundUser = usersRepository.findByEmail("test1@email.com").orElseThrow();
+
+        assertThat(foundUser.getUsername()).isEqualTo("user1");
+        assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Changing or deleting a cached user is visible to the next lookup by email")
+    void findByEmail_shouldSeeUpdatesAndDeletes() {
+        Users cached = usersRepository.findByEmail("test1@email.com").orElseThrow();
+        cached.update(new UserDto("renamed@email.com", "user1"));
+        usersRepository.save(cached);
+
+        assertThat(usersRepository.findByEmail("test1@email.com")).isEmpty();
+        Users renamed = usersRepository.findByEmail("renamed@email.com").orElseThrow();
+
+        usersRepository.delete(renamed);
+
+        assertThat(usersRepository.findByEmail("renamed@email.com")).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    @DisplayName("Bulk delete by email removes the user with one statement")
+    void bulkDeleteByEmail_shouldDeleteUser() {
+        int deleted = usersRepository.bulkDeleteByEmail("test1@email.com");
+
+        assertThat(deleted).isEqualTo(1);
+        assertThat(usersRepository.findByEmail("test1@email.com")).isEmpty();
+        assertThat(usersRepository.count()).isEqualTo(1);
+    }
+
     @Test
     @DisplayName("Delete user from repository with having two users")
     void delete_user() {
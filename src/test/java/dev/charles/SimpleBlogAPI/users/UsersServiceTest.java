@@ -3,10 +3,14 @@ package dev.charles.SimpleBlogAPI.users;
 
 import dev.charles.SimpleBlogAPI.errors.exception.DuplicateResourceException;
 import dev.charles.SimpleBlogAPI.errors.exception.NotFoundResourceException;
+import dev.charles.SimpleBlogAPI.posts.service.PostsCache;
 import dev.charles.SimpleBlogAPI.users.domain.Users;
 import dev.charles.SimpleBlogAPI.users.dto.UserDto;
+import dev.charles.SimpleBlogAPI.users.dto.UserStatsDto;
 import dev.charles.SimpleBlogAPI.users.repository.UsersRepository;
+import dev.charles.SimpleBlogAPI.users.service.AuthorCache;
 import dev.charles.SimpleBlogAPI.users.service.UsersService;
+import dev.charles.SimpleBlogAPI.utils.pagination.TotalCountResolver;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -22,12 +26,15 @@ import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongSupplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -37,6 +44,12 @@ class UsersServiceTest{
     private UsersService usersService;
     @Mock
     private UsersRepository usersRepository;
+    @Mock
+    private TotalCountResolver totalCounts;
+    @Mock
+    private PostsCache postsCache;
+    @Mock
+    private AuthorCache authorCache;
 
     @Nested
     @DisplayName("Given there are two registered users")
@@ -78,6 +91,29 @@ class UsersServiceTest{
                 assertThat(result).extracting("email", "username")
                         .contains("mike","mike@gmail.com");
             }
+            @Test
+            @DisplayName("Then the stats of mike are read from the repository in one call")
+            void UserStatsGetTest() {
+                //given
+                UserStatsDto stats = UserStatsDto.builder()
+                        .email("mike@gmail.com").username("mike").postCount(3).commentCount(5).build();
+                given(usersRepository.findStatsByEmail("mike@gmail.com")).willReturn(Optional.of(stats));
+                //when
+                UserStatsDto result = usersService.getUserStats("mike@gmail.com");
+                // then
+                assertThat(result).isSameAs(stats);
+                verify(usersRepository, times(1)).findStatsByEmail("mike@gmail.com");
+            }
+
+            @Test
+            @DisplayName("Then the stats of an unknown email are reported as not found")
+            void UserStatsNotGetTest() {
+                given(usersRepository.findStatsByEmail("dsd")).willReturn(Optional.empty());
+
+                assertThatThrownBy(() -> usersService.getUserStats("dsd"))
+                        .isInstanceOf(NotFoundResourceException.class);
+            }
+
             @Test
             @DisplayName("Then the repository is called with correct Pageable and returns the Page")
             void getUsers_ShouldCallRepositoryWithCorrectPageable() {
@@ -100,14 +136,14 @@ class UsersServiceTest{
                 Page<UserDto> givenResult = new PageImpl<>(pageContent, pageable, total);
                 // Given: Repository가 targetOffset으로 호출되면 mockPage를 반환하도록 설정
                 given(usersRepository.findAllByKeyword( false,
-                        "user",
+                        "user", 0.3,
                         pageable)).willReturn(givenResult);
 
-                Page<UserDto> resultPage = usersService.getUsers(false, "user", pageable.getPageNumber());
+                Page<UserDto> resultPage = usersService.getUsers(false, "user", 0.3, pageable.getPageNumber());
 
                 assertThat(resultPage).isEqualTo(givenResult);
                 verify(usersRepository, times(1)).findAllByKeyword( false,
-                        "user", pageable);
+                        "user", 0.3, pageable);
             }
             @Test
             @DisplayName("Then the repository's save method is called with a Users entity")
@@ -131,14 +167,28 @@ class UsersServiceTest{
             }
 
             @Test
-            @DisplayName("Then find the user entity by email and then the entity is deleted")
+            @DisplayName("Then the user is deleted by email with one bulk statement")
             void UserDeleteTest() {
                 //given
-                given(usersRepository.findByEmail(any())).willReturn(Optional.of(mike));
+                given(usersRepository.findByEmail("mike@gmail.com")).willReturn(Optional.ofNullable(mike));
+                given(usersRepository.bulkDeleteByEmail("mike@gmail.com")).willReturn(1);
                 // when
                 usersService.delete("mike@gmail.com");
                 // then
-                verify(usersRepository, times(1)).delete(any());
+                verify(usersRepository, never()).delete(any());
+                verify(postsCache, times(1)).invalidateAllAfterCommit();
+                verify(authorCache, times(1)).evictAfterCommit(mike.getId());
+            }
+
+            @Test
+            @DisplayName("Then deleting an unknown email is reported as not found")
+            void UnknownUserDeleteTest() {
+                //given
+                given(usersRepository.findByEmail("nobody@gmail.com")).willReturn(Optional.empty());
+                // when, then
+                assertThatThrownBy(() -> usersService.delete("nobody@gmail.com"))
+                        .isInstanceOf(NotFoundResourceException.class);
+                verify(usersRepository, never()).bulkDeleteByEmail(any());
             }
 
             @Test
@@ -153,6 +203,7 @@ class UsersServiceTest{
                 assertThat(mike.getEmail()).isEqualTo(newDto.getEmail());
                 assertThat(mike.getUsername()).isEqualTo(newDto.getUsername());
                 verify(usersRepository, times(2)).findByEmail(any());
+                verify(authorCache, times(1)).evictAfterCommit(eq(mike.getId()), any(LongSupplier.class));
             }
 
             @Test